@@ -0,0 +1,51 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import org.ivandr.Job;
+import org.ivandr.Person;
+import org.ivandr.Relative;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic people for benchmarks, each person has the same number of relatives and jobs,
+ * so each exported person takes exactly {@link #rowsPerPerson(int)} rows
+ */
+final class BenchmarkData {
+    /**
+     * number of distinct people, which are repeated to get required number of rows
+     */
+    static final int DISTINCT_PEOPLE = 1000;
+
+    private BenchmarkData() {
+    }
+
+    static List<Person> people(int count, int fanOut) {
+        var people = new ArrayList<Person>(count);
+        for (int i = 0; i < count; i++) {
+            people.add(person(i, fanOut));
+        }
+        return people;
+    }
+
+    static int rowsPerPerson(int fanOut) {
+        return Math.max(1, fanOut);
+    }
+
+    private static Person person(int i, int fanOut) {
+        var relatives = new ArrayList<Relative>(fanOut);
+        var jobs = new ArrayList<Job>(fanOut);
+        for (int j = 0; j < fanOut; j++) {
+            relatives.add(new Relative("Relative " + j, "Surname " + i, birthDate(i + j), null, null));
+            var manager = new Job.Manager("Manager " + j, "Surname " + j, birthDate(j), null, null);
+            jobs.add(new Job("Company " + j, "Position " + i, manager, birthDate(i).plusYears(20),
+                    j % 2 == 0 ? null : birthDate(i).plusYears(30)));
+        }
+        return new Person("Name " + i, "Surname " + i, birthDate(i), relatives, jobs);
+    }
+
+    private static LocalDate birthDate(int i) {
+        return LocalDate.of(1950, 1, 1).plusDays(i * 37L % 20_000);
+    }
+}
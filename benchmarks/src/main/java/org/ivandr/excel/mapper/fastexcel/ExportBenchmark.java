@@ -0,0 +1,76 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.SneakyThrows;
+import org.dhatim.fastexcel.Workbook;
+import org.ivandr.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export of people into one table by {@link FastExcelMapper#openSheetWriter},
+ * each person takes max(1, fanOut) rows (relatives and jobs are on the same tree height).
+ * Workbook is written to null output stream, so compression is measured, but disk is not.
+ * Each operation is the whole export, so single shot time is measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"0", "3"})
+    public int fanOut;
+
+    private FastExcelMapper<Person> mapper;
+    private List<Person> people;
+    private int peopleCount;
+
+    private Workbook workbook;
+
+    @Setup(Level.Trial)
+    public void createMapper() {
+        mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+        people = BenchmarkData.people(BenchmarkData.DISTINCT_PEOPLE, fanOut);
+        peopleCount = rows / BenchmarkData.rowsPerPerson(fanOut);
+    }
+
+    @Setup(Level.Invocation)
+    public void createWorkbook() {
+        workbook = new Workbook(OutputStream.nullOutputStream(), "benchmark", "0.1");
+    }
+
+    /**
+     * rows are written and flushed, but workbook is not finished
+     */
+    @Benchmark
+    public int mapToExcelSheet() {
+        return export();
+    }
+
+    /**
+     * the same export with finished workbook (shared strings, styles and zip directory are written)
+     */
+    @Benchmark
+    @SneakyThrows
+    public int writeWorkbook() {
+        int nextRow = export();
+        workbook.finish();
+        return nextRow;
+    }
+
+    private int export() {
+        try (var writer = mapper.openSheetWriter(workbook.newWorksheet("people"), 0, 0)) {
+            for (int i = 0; i < peopleCount; i++) {
+                writer.append(people.get(i % people.size()));
+            }
+            return writer.getNextRow();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.instancio.Instancio;
+import org.instancio.settings.Keys;
+import org.instancio.settings.Settings;
+import org.ivandr.Main;
+import org.ivandr.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares export of values by compiled {@link FastExcelExportPlan}
+ * with the previous graph traversal ({@link GraphTraversalExport}).
+ * Both write the same cells, workbook is never finished, so only export itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastExcelExportPlanBenchmark {
+    @Param({"10", "100"})
+    public int peopleCount;
+
+    private FastExcelMapper<Main.People> mapper;
+    private GraphTraversalExport<Main.People> graphTraversalExport;
+    private Main.People people;
+
+    private Workbook workbook;
+    private Worksheet worksheet;
+    private FastExcelStyleRegistry.Styles styles;
+
+    @Setup(Level.Trial)
+    public void createMapper() {
+        mapper = new FastExcelMapperFactory().createExcelMapperForClass(Main.People.class);
+        graphTraversalExport = new GraphTraversalExport<>(mapper);
+        people = new Main.People(Instancio.ofList(Person.class)
+                .size(peopleCount)
+                .withSettings(Settings.defaults()
+                        .set(Keys.MAX_DEPTH, 10)
+                        .set(Keys.COLLECTION_MIN_SIZE, 1)
+                        .set(Keys.COLLECTION_MAX_SIZE, 5))
+                .withSeed(42)
+                .lenient().create());
+    }
+
+    /**
+     * merged regions could not be written twice, so each invocation gets empty worksheet
+     */
+    @Setup(Level.Invocation)
+    public void createWorksheet() {
+        workbook = new Workbook(OutputStream.nullOutputStream(), "benchmark", "0.1");
+        worksheet = workbook.newWorksheet("benchmark");
+        styles = mapper.bindStyles(worksheet);
+    }
+
+    @Benchmark
+    public int compiledPlan() {
+        return mapper.mapValuesToExcelSheet(worksheet, 0, 0, people, styles);
+    }
+
+    @Benchmark
+    public int graphTraversal() {
+        return graphTraversalExport.mapValuesToExcelSheet(worksheet, 0, 0, people);
+    }
+}
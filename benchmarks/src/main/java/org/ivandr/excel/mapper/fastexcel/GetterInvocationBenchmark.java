@@ -0,0 +1,136 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares single pass export ({@link FastExcelRecordLayout}) with the previous two pass export
+ * ({@link TwoPassExport}). Getters of plan are wrapped by counters, so besides time
+ * the number of getter invocations per operation is reported as "getterInvocations".
+ * Each operation exports all people to empty worksheet, so single shot time is measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GetterInvocationBenchmark {
+    @Param({"1000"})
+    public int peopleCount;
+
+    @Param({"0", "3"})
+    public int fanOut;
+
+    private static long invocations;
+
+    private FastExcelMapper<Person> mapper;
+    private TwoPassExport<Person> twoPassExport;
+    private List<Person> people;
+
+    private Worksheet worksheet;
+    private FastExcelStyleRegistry.Styles styles;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long getterInvocations;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            getterInvocations = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createMapper() {
+        // own factory, so counted getters are not shared with cached mapper of other benchmarks
+        mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+        countGetters(mapper.getPlan());
+        twoPassExport = new TwoPassExport<>(mapper);
+        people = BenchmarkData.people(peopleCount, fanOut);
+    }
+
+    /**
+     * merged regions could not be written twice, so each invocation gets empty worksheet
+     */
+    @Setup(Level.Invocation)
+    public void createWorksheet() {
+        var workbook = new Workbook(OutputStream.nullOutputStream(), "benchmark", "0.1");
+        worksheet = workbook.newWorksheet("benchmark");
+        styles = mapper.bindStyles(worksheet);
+    }
+
+    @Benchmark
+    public int singlePass(Counters counters) {
+        long before = invocations;
+        var layout = mapper.newLayout();
+        int row = 0;
+        for (var person : people) {
+            row += mapper.mapValuesToExcelSheet(worksheet, row, 0, person, styles, layout,
+                    FastExcelMapper.NO_ROW_LISTENER);
+        }
+        counters.getterInvocations = invocations - before;
+        return row;
+    }
+
+    @Benchmark
+    public int twoPass(Counters counters) {
+        long before = invocations;
+        int row = 0;
+        for (var person : people) {
+            row += twoPassExport.mapValuesToExcelSheet(worksheet, row, 0, person, styles);
+        }
+        counters.getterInvocations = invocations - before;
+        return row;
+    }
+
+    private static void countGetters(FastExcelExportPlan plan) {
+        var valueGetters = plan.getValueGetters();
+        var collectionGetters = plan.getCollectionGetters();
+        var primitiveGetters = plan.getPrimitiveGetters();
+        for (int i = 0; i < plan.size(); i++) {
+            var valueGetter = valueGetters[i];
+            if (valueGetter != null) valueGetters[i] = object -> {
+                invocations++;
+                return valueGetter.apply(object);
+            };
+            var collectionGetter = collectionGetters[i];
+            if (collectionGetter != null) collectionGetters[i] = object -> {
+                invocations++;
+                return collectionGetter.apply(object);
+            };
+            // primitive leaves are read by unboxed getters in single pass and by value getters in two passes
+            if (primitiveGetters[i] != null) primitiveGetters[i] = countedGetter(primitiveGetters[i]);
+        }
+    }
+
+    private static FastExcelMappingNode.PrimitiveGetter countedGetter(FastExcelMappingNode.PrimitiveGetter getter) {
+        if (getter instanceof FastExcelMappingNode.IntGetter intGetter)
+            return (FastExcelMappingNode.IntGetter) object -> {
+                invocations++;
+                return intGetter.applyAsInt(object);
+            };
+        if (getter instanceof FastExcelMappingNode.LongGetter longGetter)
+            return (FastExcelMappingNode.LongGetter) object -> {
+                invocations++;
+                return longGetter.applyAsLong(object);
+            };
+        if (getter instanceof FastExcelMappingNode.DoubleGetter doubleGetter)
+            return (FastExcelMappingNode.DoubleGetter) object -> {
+                invocations++;
+                return doubleGetter.applyAsDouble(object);
+            };
+        var booleanGetter = (FastExcelMappingNode.BooleanGetter) getter;
+        return (FastExcelMappingNode.BooleanGetter) object -> {
+            invocations++;
+            return booleanGetter.applyAsBoolean(object);
+        };
+    }
+}
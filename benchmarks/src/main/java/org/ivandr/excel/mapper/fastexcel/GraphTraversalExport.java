@@ -0,0 +1,219 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.StyleSetter;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.excel.basics.ExcelCellStyleInfo;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export of values, as it was done by {@link FastExcelMapper} before the mapping tree
+ * was compiled into {@link FastExcelExportPlan}: graph is walked twice per object and
+ * values are collected by leaves before writing.
+ * It is kept only as a baseline for benchmarks.
+ */
+@SuppressWarnings("UnstableApiUsage")
+class GraphTraversalExport<T> {
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+
+    GraphTraversalExport(@NonNull FastExcelMapper<T> mapper) {
+        this.mapper = mapper;
+    }
+
+    int mapValuesToExcelSheet(
+            @NonNull Worksheet worksheet,
+            int startRow, int startColumn,
+            T value) {
+        List<Integer> accumulatedMaximalCellNumberByTreeHeight = getAccumulatedMaximalCellNumberByHeight(value);
+
+        HashMap<FastExcelMappingNode, List<Object>> exportObjectsByLeaf = getObjectsToExport(
+                accumulatedMaximalCellNumberByTreeHeight,
+                value
+        );
+
+        var leaves = mapper.getLeaves();
+        int maxTreeHeight = accumulatedMaximalCellNumberByTreeHeight.size();
+        for (int i = 0; i < leaves.size(); i++) {
+            var leaf = leaves.get(i);
+            var exportMetaInfo = leaf.getExportMetaInfo()
+                    .orElseThrow(() -> new IllegalStateException("Node without meta info, could not continue"));
+
+            var listOfObjects = exportObjectsByLeaf.getOrDefault(leaves.get(i), new ArrayList<>());
+            var leafTreeHeight = leaf.getTreeHeight();
+            int sizePerObject = !leaf.isCollectionMapping() ?
+                    accumulatedMaximalCellNumberByTreeHeight.get(leafTreeHeight) :
+                    leafTreeHeight + 1 == maxTreeHeight ?
+                            1 :
+                            accumulatedMaximalCellNumberByTreeHeight.get(leafTreeHeight + 1);
+            int topRow = startRow;
+            for (var o : listOfObjects) {
+                int leftColumn = startColumn + i;
+
+                worksheet.value(topRow, leftColumn, o == null ? exportMetaInfo.valueFallback() : o.toString());
+                var styleSetter = worksheet.range(topRow, leftColumn,
+                        topRow + sizePerObject - 1, leftColumn).style();
+                applyStyleToCell(styleSetter, exportMetaInfo.valueStyle());
+                styleSetter.set();
+                styleSetter.merge().set();
+                topRow += sizePerObject;
+            }
+        }
+
+        return accumulatedMaximalCellNumberByTreeHeight.get(0);
+    }
+
+    private List<Integer> getAccumulatedMaximalCellNumberByHeight(T value) {
+        var treeGraph = mapper.getTreeGraph();
+        HashMap<Integer, Integer> cellNumberByHeight = new HashMap<>();
+
+        var stack = new ArrayDeque<FastExcelNodeWithValue>();
+        stack.add(new FastExcelNodeWithValue(mapper.getRoot(), value));
+
+        int maxTreeHeight = 0;
+        while (!stack.isEmpty()) {
+            var parent = stack.pop();
+            maxTreeHeight = Math.max(parent.node().getTreeHeight(), maxTreeHeight);
+
+            var children = treeGraph.successors(parent.node());
+
+            stack.addAll(
+                    children
+                            .stream()
+                            .flatMap(n -> {
+                                Object gotValue = getValueFromNode(n, parent.value());
+
+                                Stream<?> resStream = Stream.of(gotValue);
+                                if (n.isCollectionMapping() && gotValue instanceof Collection<?> coll) {
+                                    cellNumberByHeight.compute(n.getTreeHeight(),
+                                            (k, v) -> Math.max(1, v == null ? coll.size() : Math.max(v, coll.size())));
+                                    resStream = coll.stream();
+                                }
+                                return resStream.map(o -> new FastExcelNodeWithValue(n, o));
+                            }).toList()
+            );
+        }
+
+        var res = new ArrayList<Integer>(maxTreeHeight + 1);
+        for (int i = 0; i <= maxTreeHeight; i++) {
+            res.add(cellNumberByHeight.getOrDefault(i, 1));
+        }
+
+        for (int i = res.size() - 2; i >= 0; i--) {
+            res.set(i, res.get(i + 1) * res.get(i));
+        }
+
+        return res;
+    }
+
+    private HashMap<FastExcelMappingNode, List<Object>> getObjectsToExport(
+            @NonNull List<Integer> accumulatedMaximalCellNumberByTreeHeight,
+            T value
+    ) {
+        var treeGraph = mapper.getTreeGraph();
+        HashMap<FastExcelMappingNode, List<Object>> exportObjectsByLeaf = new HashMap<>();
+        for (var l : mapper.getLeaves()) exportObjectsByLeaf.put(l, new ArrayList<>());
+
+        var stack = new ArrayDeque<FastExcelNodeWithValue>();
+        stack.add(new FastExcelNodeWithValue(mapper.getRoot(), value));
+
+        while (!stack.isEmpty()) {
+            var parent = stack.pop();
+            var children = treeGraph.successors(parent.node());
+
+            stack.addAll(
+                    children
+                            .stream()
+                            .flatMap(n -> {
+                                        Object gotValue = getValueFromNode(n, parent.value());
+
+                                        Stream<?> resStream = Stream.of(gotValue);
+
+                                        if (n.isCollectionMapping() && gotValue instanceof Collection<?> coll) {
+                                            int requiredSize =
+                                                    accumulatedMaximalCellNumberByTreeHeight.get(n.getTreeHeight())
+                                                    / (n.getTreeHeight() + 1 == accumulatedMaximalCellNumberByTreeHeight.size() ?
+                                                            1 :
+                                                            accumulatedMaximalCellNumberByTreeHeight.get(n.getTreeHeight() + 1));
+                                            // padding is done on copy, so benchmark data stays the same between invocations
+                                            var padded = new ArrayList<Object>(coll);
+                                            for (int i = coll.size(); i < requiredSize; i++) {
+                                                padded.add(null);
+                                            }
+                                            resStream = padded.stream();
+                                        }
+                                        return resStream.map(o -> new FastExcelNodeWithValue(n, o));
+                                    }
+                            ).toList()
+            );
+
+            if (children.isEmpty()) {
+                exportObjectsByLeaf.compute(parent.node(),
+                        (k, v) -> {
+                            if (v == null) v = new ArrayList<>();
+                            v.add(parent.value());
+                            return v;
+                        });
+            }
+        }
+        return exportObjectsByLeaf;
+    }
+
+    private Object getValueFromNode(@NonNull FastExcelMappingNode node,
+                                    Object sourceValue) {
+        if (sourceValue == null)
+            return null;
+
+        var valueStream = sourceValue instanceof Collection<?> coll ?
+                coll.stream() : Stream.of(sourceValue);
+
+        var nodeList = valueStream
+                .map(v -> v == null ? null :
+                        node.getCollectionGetter().isPresent() ?
+                                node.getCollectionGetter().get().apply(v) :
+                                node.getValueGetter()
+                                        .orElseThrow(() ->
+                                                new IllegalStateException("No getter was found in node!"))
+                                        .apply(v))
+                .collect(Collectors.toList());
+
+        if (sourceValue instanceof Collection<?>) {
+            return nodeList;
+        }
+
+        if (nodeList.isEmpty()) {
+            throw new IllegalStateException("No value was got from getters!");
+        }
+
+        return nodeList.get(0);
+    }
+
+    private record FastExcelNodeWithValue(@NonNull FastExcelMappingNode node, @Nullable Object value) {
+    }
+
+    private void applyStyleToCell(@NonNull StyleSetter styleSetter,
+                                  @NonNull ExcelCellStyleInfo style) {
+
+        styleSetter = styleSetter.borderStyle(style.borderStyle())
+                .fontSize(style.fontSize())
+                .borderStyle(style.borderStyle())
+                .horizontalAlignment(style.horizontalAlignment().getHorizontalAlignmentTag())
+                .verticalAlignment(style.verticalAlignment().getVerticalAlignmentFastExcelTag())
+                .wrapText(style.isWrapText());
+        if (style.isBold())
+            styleSetter = styleSetter.bold();
+        if (style.isItalic())
+            styleSetter = styleSetter.italic();
+        if (style.isUnderlined())
+            styleSetter = styleSetter.underlined();
+
+        if (!style.cellFormat().isBlank() && !style.cellFormat().isEmpty())
+            styleSetter = styleSetter.format(style.cellFormat());
+
+        styleSetter.set();
+    }
+}
@@ -0,0 +1,50 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.Main;
+import org.ivandr.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of header block only (values, styles and merges of header cells)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderBenchmark {
+    @Param({"Person", "People"})
+    public String mappedClass;
+
+    private FastExcelMapper<?> mapper;
+
+    private Worksheet worksheet;
+    private FastExcelStyleRegistry.Styles styles;
+
+    @Setup(Level.Trial)
+    public void createMapper() {
+        Class<?> clazz = mappedClass.equals("Person") ? Person.class : Main.People.class;
+        mapper = new FastExcelMapperFactory().createExcelMapperForClass(clazz);
+    }
+
+    /**
+     * merged regions could not be written twice, so each invocation gets empty worksheet
+     */
+    @Setup(Level.Invocation)
+    public void createWorksheet() {
+        worksheet = new Workbook(OutputStream.nullOutputStream(), "benchmark", "0.1").newWorksheet("benchmark");
+        styles = mapper.bindStyles(worksheet);
+    }
+
+    @Benchmark
+    public Worksheet mapHeadersToExcelSheet() {
+        mapper.mapHeadersToExcelSheet(0, 0, worksheet, styles);
+        return worksheet;
+    }
+}
@@ -0,0 +1,46 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import org.ivandr.Job;
+import org.ivandr.Main;
+import org.ivandr.Person;
+import org.ivandr.Relative;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of mapper by reflection (cache of factory is bypassed by new factory per invocation),
+ * from flat {@link Job} to deep {@link Main.People}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperCreationBenchmark {
+    private static final Map<String, Class<?>> CLASSES = Map.of(
+            "Job", Job.class,
+            "Relative", Relative.class,
+            "Person", Person.class,
+            "People", Main.People.class);
+
+    @Param({"Job", "Relative", "Person", "People"})
+    public String mappedClass;
+
+    private Class<?> clazz;
+
+    @Setup(Level.Trial)
+    public void resolveClass() {
+        clazz = CLASSES.get(mappedClass);
+    }
+
+    @Benchmark
+    public FastExcelMapper<?> createExcelMapperForClass() {
+        return FastExcelMapperFactory.builder()
+                .generatedMappings(false)
+                .build()
+                .createExcelMapperForClass(clazz);
+    }
+}
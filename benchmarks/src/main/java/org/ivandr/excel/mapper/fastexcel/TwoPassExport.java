@@ -0,0 +1,134 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.util.Arrays;
+
+/**
+ * Export of values, as it was done by {@link FastExcelMapper} before {@link FastExcelRecordLayout}:
+ * sizes of collections are collected by the first traversal and values are written by the second one,
+ * so each getter is invoked twice per object.
+ * It is kept only as a baseline for benchmarks.
+ */
+class TwoPassExport<T> {
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+
+    TwoPassExport(@NonNull FastExcelMapper<T> mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param startRow first row of values (right under headers)
+     * @return number of rows taken by value
+     */
+    int mapValuesToExcelSheet(
+            @NonNull Worksheet worksheet,
+            int startRow, int startColumn,
+            T value,
+            @NonNull FastExcelStyleRegistry.Styles styles) {
+        var plan = mapper.getPlan();
+
+        // index - treeHeight,
+        // value - maximal size of collections on this tree height (at least 1)
+        int[] maxCollectionSizes = new int[plan.getMaxTreeHeight() + 1];
+        Arrays.fill(maxCollectionSizes, 1);
+        collectMaxCollectionSizes(plan, FastExcelExportPlan.ROOT, value, maxCollectionSizes);
+
+        // index - treeHeight,
+        // value - number of rows required for one value of the tree height
+        // (including all children of current height), last one is a stub for the deepest collections
+        int[] rowSpans = new int[maxCollectionSizes.length + 1];
+        rowSpans[maxCollectionSizes.length] = 1;
+        for (int i = maxCollectionSizes.length - 1; i >= 0; i--) {
+            rowSpans[i] = maxCollectionSizes[i] * rowSpans[i + 1];
+        }
+
+        mapChildrenToExcelSheet(worksheet, styles, plan, FastExcelExportPlan.ROOT, value,
+                startRow, startColumn, maxCollectionSizes, rowSpans);
+        return rowSpans[0];
+    }
+
+    private void collectMaxCollectionSizes(@NonNull FastExcelExportPlan plan,
+                                           int node, Object value,
+                                           int[] maxCollectionSizes) {
+        if (value == null) return;
+
+        for (int child : plan.getChildren()[node]) {
+            if (!plan.getCollectionMappings()[child]) {
+                collectMaxCollectionSizes(plan, child, plan.getValueGetters()[child].apply(value), maxCollectionSizes);
+                continue;
+            }
+
+            var collection = plan.getCollectionGetters()[child].apply(value);
+            if (collection == null) continue;
+
+            // iterable is not required to know its size, so it is counted
+            int size = 0;
+            for (var element : collection) {
+                size++;
+                collectMaxCollectionSizes(plan, child, element, maxCollectionSizes);
+            }
+            int treeHeight = plan.getTreeHeights()[child];
+            maxCollectionSizes[treeHeight] = Math.max(maxCollectionSizes[treeHeight], size);
+        }
+    }
+
+    private void mapChildrenToExcelSheet(@NonNull Worksheet worksheet,
+                                         @NonNull FastExcelStyleRegistry.Styles styles,
+                                         @NonNull FastExcelExportPlan plan,
+                                         int node, Object value,
+                                         int row, int startColumn,
+                                         int[] maxCollectionSizes, int[] rowSpans) {
+        for (int child : plan.getChildren()[node]) {
+            int treeHeight = plan.getTreeHeights()[child];
+
+            if (!plan.getCollectionMappings()[child]) {
+                var childValue = value == null ? null : plan.getValueGetters()[child].apply(value);
+                mapNodeToExcelSheet(worksheet, styles, plan, child, childValue,
+                        row, startColumn, rowSpans[treeHeight], maxCollectionSizes, rowSpans);
+                continue;
+            }
+
+            // collection is padded virtually to the maximal size of its tree height,
+            // so source collection is neither copied nor modified
+            var collection = value == null ? null : plan.getCollectionGetters()[child].apply(value);
+            var iterator = collection == null ? null : collection.iterator();
+            int rowSpan = rowSpans[treeHeight + 1];
+            for (int i = 0; i < maxCollectionSizes[treeHeight]; i++) {
+                var element = iterator != null && iterator.hasNext() ? iterator.next() : null;
+                mapNodeToExcelSheet(worksheet, styles, plan, child, element,
+                        row + i * rowSpan, startColumn, rowSpan, maxCollectionSizes, rowSpans);
+            }
+        }
+    }
+
+    private void mapNodeToExcelSheet(@NonNull Worksheet worksheet,
+                                     @NonNull FastExcelStyleRegistry.Styles styles,
+                                     @NonNull FastExcelExportPlan plan,
+                                     int node, Object value,
+                                     int row, int startColumn, int rowSpan,
+                                     int[] maxCollectionSizes, int[] rowSpans) {
+        if (!plan.isLeaf(node)) {
+            mapChildrenToExcelSheet(worksheet, styles, plan, node, value,
+                    row, startColumn, maxCollectionSizes, rowSpans);
+            return;
+        }
+
+        var exportMetaInfo = plan.getExportMetaInfos()[node];
+        int column = startColumn + plan.getLeafColumns()[node];
+
+        int bottom = row + rowSpan - 1;
+
+        if (value == null) {
+            worksheet.value(row, column, exportMetaInfo.valueFallback());
+        } else {
+            plan.getValueWriters()[node].write(worksheet, row, column, value);
+        }
+        styles.apply(worksheet, plan.getValueStyleIds()[node], row, column, bottom, column);
+        if (bottom != row) {
+            worksheet.range(row, column, bottom, column).merge();
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package org.ivandr.excel.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates {@code <Class>_ExcelMapping} implementation of
+ * {@code org.ivandr.excel.mapper.fastexcel.FastExcelMappingDefinition} for each class,
+ * which declares getters or fields annotated by {@code ExcelExportObject},
+ * and registers it for {@link java.util.ServiceLoader}.
+ * Generated code calls getters and reads fields directly, so mapper creation needs neither reflection
+ * nor lambda generation.
+ * Mapping tree is built by the same rules as reflection of {@code FastExcelMapperFactory}:
+ * public annotated getters and annotated fields (inherited ones too, fields of records are covered by accessors)
+ * sorted by order, overriding getter without annotation hides inherited one
+ * and children are not looked for if {@code isRecursive} is false.
+ * Mapping is not generated if field is not accessible from generated code (e.g. private), reflection is used then.
+ */
+@SupportedAnnotationTypes(ExcelMappingProcessor.EXPORT_ANNOTATION)
+public class ExcelMappingProcessor extends AbstractProcessor {
+    static final String EXPORT_ANNOTATION = "org.ivandr.excel.annotations.ExcelExportObject";
+    static final String DEFINITION = "org.ivandr.excel.mapper.fastexcel.FastExcelMappingDefinition";
+    static final String BUILDER = "org.ivandr.excel.mapper.fastexcel.FastExcelMappingBuilder";
+    static final String EXPORT_INFO = "org.ivandr.excel.basics.ExcelExportInfo";
+    static final String STYLE_INFO = "org.ivandr.excel.basics.ExcelCellStyleInfo";
+    static final String SUFFIX = "_ExcelMapping";
+
+    private static final String SERVICE_FILE = "META-INF/services/" + DEFINITION;
+
+    /**
+     * qualified names of generated definitions
+     */
+    private final Set<String> definitions = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!definitions.isEmpty())
+                writeServiceFile();
+            return false;
+        }
+
+        var types = new LinkedHashSet<TypeElement>();
+        for (var annotation : annotations) {
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if ((element.getKind() == ElementKind.METHOD || element.getKind() == ElementKind.FIELD) &&
+                        element.getEnclosingElement() instanceof TypeElement type)
+                    types.add(type);
+            }
+        }
+
+        for (var type : types) {
+            if (!isAccessible(type, packageOf(type))) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Mapping is not generated for not accessible class, reflection would be used", type);
+                continue;
+            }
+            new DefinitionGenerator(type).generate();
+        }
+        return false;
+    }
+
+    private void writeServiceFile() {
+        var filer = processingEnv.getFiler();
+        var entries = new TreeSet<>(definitions);
+        // keeps definitions of classes, which were not recompiled (incremental compilation)
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (var reader = new BufferedReader(existing.openReader(true))) {
+                reader.lines()
+                        .map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .filter(line -> processingEnv.getElementUtils().getTypeElement(line) != null)
+                        .forEach(entries::add);
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // there is no previous service file
+        }
+
+        try {
+            var file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (var entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + SERVICE_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    /**
+     * @return whether class and all its enclosing classes could be referenced from package
+     */
+    private boolean isAccessible(TypeElement type, PackageElement from) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            var modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE))
+                return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !packageOf(element).equals(from))
+                return false;
+            if (((TypeElement) element).getNestingKind() == NestingKind.LOCAL ||
+                    ((TypeElement) element).getNestingKind() == NestingKind.ANONYMOUS)
+                return false;
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private AnnotationMirror exportAnnotation(Element element) {
+        for (var mirror : element.getAnnotationMirrors()) {
+            var annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(EXPORT_ANNOTATION))
+                return mirror;
+        }
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror mirror, String name) {
+        for (var entry : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return entry.getValue().getValue();
+        }
+        throw new IllegalStateException("Annotation value " + name + " is not present");
+    }
+
+    /**
+     * Generator of definition of one class
+     */
+    private final class DefinitionGenerator {
+        private final TypeElement rootType;
+        private final PackageElement rootPackage;
+        private final StringBuilder body = new StringBuilder();
+        /**
+         * style constants by their initializer
+         */
+        private final Map<String, String> styles = new LinkedHashMap<>();
+        /**
+         * classes on the route from root to processed node
+         */
+        private final Deque<TypeElement> route = new ArrayDeque<>();
+        private int nodes = 0;
+        private boolean failed = false;
+        /**
+         * field, which could not be read by generated code
+         */
+        private VariableElement inaccessibleField;
+
+        private DefinitionGenerator(TypeElement rootType) {
+            this.rootType = rootType;
+            this.rootPackage = packageOf(rootType);
+        }
+
+        private void generate() {
+            var type = (DeclaredType) processingEnv.getTypeUtils().erasure(rootType.asType());
+            defineChildren(type, "FastExcelMappingBuilder.ROOT");
+            if (failed) return;
+            if (inaccessibleField != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Mapping is not generated, because field " + inaccessibleField.getSimpleName() +
+                                " is not accessible, reflection would be used", rootType);
+                return;
+            }
+
+            var simpleName = definitionSimpleName();
+            var packageName = rootPackage.isUnnamed() ? "" : rootPackage.getQualifiedName().toString();
+            var qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+            try {
+                var file = processingEnv.getFiler().createSourceFile(qualifiedName, rootType);
+                try (Writer writer = file.openWriter()) {
+                    writer.write(source(packageName, simpleName));
+                }
+                definitions.add(qualifiedName);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Could not generate " + qualifiedName + ": " + e.getMessage(), rootType);
+            }
+        }
+
+        private String definitionSimpleName() {
+            var names = new ArrayDeque<String>();
+            Element element = rootType;
+            while (element instanceof TypeElement) {
+                names.push(element.getSimpleName().toString());
+                element = element.getEnclosingElement();
+            }
+            return String.join("_", names) + SUFFIX;
+        }
+
+        private String source(String packageName, String simpleName) {
+            var rootName = rawName(rootType.asType());
+            var source = new StringBuilder();
+            if (!packageName.isEmpty())
+                source.append("package ").append(packageName).append(";\n\n");
+            source.append("import ").append(BUILDER).append(";\n")
+                    .append("import ").append(DEFINITION).append(";\n")
+                    .append("import ").append(EXPORT_INFO).append(";\n")
+                    .append("import ").append(STYLE_INFO).append(";\n\n")
+                    .append("@javax.annotation.processing.Generated(\"")
+                    .append(ExcelMappingProcessor.class.getName()).append("\")\n")
+                    .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                    .append("public final class ").append(simpleName)
+                    .append(" implements FastExcelMappingDefinition<").append(rootName).append("> {\n");
+            for (var style : styles.entrySet()) {
+                source.append("    private static final ExcelCellStyleInfo ").append(style.getValue())
+                        .append(" = ").append(style.getKey()).append(";\n");
+            }
+            source.append("\n    @Override\n")
+                    .append("    public Class<").append(rootName).append("> getMappedClass() {\n")
+                    .append("        return ").append(rootName).append(".class;\n")
+                    .append("    }\n\n")
+                    .append("    @Override\n")
+                    .append("    public void defineMapping(FastExcelMappingBuilder builder) {\n")
+                    .append(body)
+                    .append("    }\n")
+                    .append("}\n");
+            return source.toString();
+        }
+
+        private void defineChildren(DeclaredType type, String parentHandle) {
+            var typeElement = (TypeElement) type.asElement();
+            if (!isAccessible(typeElement, rootPackage)) {
+                error("Class " + typeElement.getQualifiedName() + " is not accessible from generated mapping of " +
+                        rootType.getQualifiedName(), rootType);
+                return;
+            }
+
+            route.push(typeElement);
+            for (var getter : exportGetters(typeElement)) {
+                defineNode(type, getter, parentHandle);
+            }
+            for (var field : exportFields(typeElement)) {
+                if (!isReadable(field))
+                    inaccessibleField = field;
+            }
+            route.pop();
+        }
+
+        /**
+         * @param getter annotated getter or field
+         */
+        private void defineNode(DeclaredType parentType, Element getter, String parentHandle) {
+            var types = processingEnv.getTypeUtils();
+            var annotation = exportAnnotation(getter);
+            var memberType = types.asMemberOf(parentType, getter);
+            var isField = getter.getKind() == ElementKind.FIELD;
+            var returnType = isField ? memberType : ((ExecutableType) memberType).getReturnType();
+            var handle = "node" + (++nodes);
+            var call = "o -> ((" + rawName(parentType) + ") o)." + getter.getSimpleName() + (isField ? "" : "()");
+
+            TypeMirror childType = returnType;
+            String method = "value";
+            if (returnType.getKind() == TypeKind.ARRAY) {
+                childType = ((ArrayType) returnType).getComponentType();
+                method = "array";
+            } else if (isIterable(returnType)) {
+                childType = elementType(returnType);
+                if (childType == null) {
+                    error("Element type of collection could not be resolved, raw collections are not supported", getter);
+                    return;
+                }
+                method = "collection";
+            }
+            // primitives are read by unboxed getters (char and float are kept boxed, as by reflection),
+            // only int getter needs type, because short and byte are read as int too
+            var typeArgument = ", " + rawName(childType) + ".class";
+            var primitiveMethod = primitiveValueMethod(returnType.getKind());
+            if (primitiveMethod != null) {
+                if (!primitiveMethod.equals("intValue")) typeArgument = "";
+                method = primitiveMethod;
+            }
+            body.append("        int ").append(handle).append(" = builder.").append(method).append("(").append(parentHandle)
+                    .append(", ").append(exportInfo(annotation))
+                    .append(typeArgument).append(", ").append(call).append(");\n");
+
+            if (!(Boolean) annotationValue(annotation, "isRecursive") ||
+                    childType.getKind() != TypeKind.DECLARED)
+                return;
+
+            var childElement = (TypeElement) ((DeclaredType) childType).asElement();
+            if (route.contains(childElement)) {
+                // recursive types are mapped by reflection, where their depth could be bounded
+                if (!exportGetters(childElement).isEmpty())
+                    skip("Mapping is not generated for cyclic mapping of " + childElement.getQualifiedName() +
+                            ", reflection would be used", getter);
+                return;
+            }
+            defineChildren((DeclaredType) childType, handle);
+        }
+
+        /**
+         * @return method of builder, which reads primitive of kind without boxing, null for other kinds
+         */
+        private String primitiveValueMethod(TypeKind kind) {
+            return switch (kind) {
+                case INT, SHORT, BYTE -> "intValue";
+                case LONG -> "longValue";
+                case DOUBLE -> "doubleValue";
+                case BOOLEAN -> "booleanValue";
+                default -> null;
+            };
+        }
+
+        /**
+         * @return public annotated getters and annotated fields sorted by order, overridden getters are skipped
+         */
+        private List<Element> exportGetters(TypeElement type) {
+            var elements = processingEnv.getElementUtils();
+            var methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+            var getters = new ArrayList<Element>();
+            for (var method : methods) {
+                if (exportAnnotation(method) == null || !isGetter(method))
+                    continue;
+                if (methods.stream().anyMatch(other -> other != method && elements.overrides(other, method, type)))
+                    continue;
+                getters.add(method);
+            }
+            getters.addAll(exportFields(type));
+            getters.sort(Comparator.comparingInt(g -> (Integer) annotationValue(exportAnnotation(g), "order")));
+            return getters;
+        }
+
+        /**
+         * @return annotated instance fields of class and its superclasses (private ones too),
+         * fields of records are skipped
+         */
+        private List<VariableElement> exportFields(TypeElement type) {
+            var fields = new ArrayList<VariableElement>();
+            if (type.getKind() == ElementKind.RECORD) return fields;
+            for (var clazz = type; clazz != null; clazz = superclass(clazz)) {
+                for (var field : ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+                    if (exportAnnotation(field) != null && !field.getModifiers().contains(Modifier.STATIC))
+                        fields.add(field);
+                }
+            }
+            return fields;
+        }
+
+        private TypeElement superclass(TypeElement type) {
+            var superclass = type.getSuperclass();
+            return superclass.getKind() == TypeKind.DECLARED ?
+                    (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+
+        /**
+         * @return whether field could be read by generated mapping (it is placed in package of root)
+         */
+        private boolean isReadable(VariableElement field) {
+            var modifiers = field.getModifiers();
+            return modifiers.contains(Modifier.PUBLIC) ||
+                    !modifiers.contains(Modifier.PRIVATE) && packageOf(field).equals(rootPackage);
+        }
+
+        private boolean isGetter(ExecutableElement method) {
+            return method.getModifiers().contains(Modifier.PUBLIC) &&
+                    !method.getModifiers().contains(Modifier.STATIC) &&
+                    method.getParameters().isEmpty() &&
+                    method.getReturnType().getKind() != TypeKind.VOID;
+        }
+
+        private boolean isIterable(TypeMirror type) {
+            var types = processingEnv.getTypeUtils();
+            return type.getKind() == TypeKind.DECLARED &&
+                    types.isAssignable(types.erasure(type), types.erasure(iterableType()));
+        }
+
+        private TypeMirror iterableType() {
+            return processingEnv.getElementUtils().getTypeElement(Iterable.class.getName()).asType();
+        }
+
+        /**
+         * @return type argument of Iterable supertype of type (e.g. Person for Set&lt;Person&gt;),
+         * null if it is raw
+         */
+        private TypeMirror elementType(TypeMirror type) {
+            var types = processingEnv.getTypeUtils();
+            if (!types.isSameType(types.erasure(type), types.erasure(iterableType()))) {
+                for (var supertype : types.directSupertypes(type)) {
+                    if (isIterable(supertype)) return elementType(supertype);
+                }
+                return null;
+            }
+
+            var arguments = ((DeclaredType) type).getTypeArguments();
+            if (arguments.isEmpty())
+                return null;
+
+            var argument = arguments.get(0);
+            if (argument instanceof WildcardType wildcard) {
+                return wildcard.getExtendsBound() == null ? processingEnv.getElementUtils()
+                        .getTypeElement(Object.class.getName()).asType() : wildcard.getExtendsBound();
+            }
+            return argument;
+        }
+
+        private String rawName(TypeMirror type) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+
+        private String exportInfo(AnnotationMirror annotation) {
+            var elements = processingEnv.getElementUtils();
+            return "new ExcelExportInfo(" +
+                    elements.getConstantExpression(annotationValue(annotation, "headerName")) + ", " +
+                    annotationValue(annotation, "order") + ", " +
+                    styleConstant((AnnotationMirror) annotationValue(annotation, "headerStyle")) + ", " +
+                    styleConstant((AnnotationMirror) annotationValue(annotation, "valueStyle")) + ", " +
+                    elements.getConstantExpression(annotationValue(annotation, "valueFallback")) + ", " +
+                    annotationValue(annotation, "isRecursive") + ")";
+        }
+
+        private String styleConstant(AnnotationMirror style) {
+            var initializer = "new ExcelCellStyleInfo(" +
+                    annotationValue(style, "isBold") + ", " +
+                    annotationValue(style, "isItalic") + ", " +
+                    annotationValue(style, "isUnderlined") + ", " +
+                    annotationValue(style, "isWrapText") + ", " +
+                    annotationValue(style, "fontSize") + ", " +
+                    enumConstant(annotationValue(style, "borderStyle")) + ", " +
+                    enumConstant(annotationValue(style, "horizontalAlignment")) + ", " +
+                    enumConstant(annotationValue(style, "verticalAlignment")) + ", " +
+                    processingEnv.getElementUtils().getConstantExpression(annotationValue(style, "cellFormat")) + ")";
+            return styles.computeIfAbsent(initializer, i -> "STYLE_" + styles.size());
+        }
+
+        private String enumConstant(Object value) {
+            var constant = (VariableElement) value;
+            return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "." + constant.getSimpleName();
+        }
+
+        private void error(String message, Element element) {
+            failed = true;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        }
+
+        /**
+         * Stops generation without failing compilation, so mapping is reflected at runtime
+         */
+        private void skip(String message, Element element) {
+            failed = true;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+        }
+    }
+}
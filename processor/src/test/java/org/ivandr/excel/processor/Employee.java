@@ -0,0 +1,26 @@
+package org.ivandr.excel.processor;
+
+import org.ivandr.excel.annotations.ExcelExportObject;
+
+/**
+ * refers to itself, so it is mapped by reflection with bounded depth
+ */
+public class Employee {
+    private final String name;
+    private final Employee manager;
+
+    public Employee(String name, Employee manager) {
+        this.name = name;
+        this.manager = manager;
+    }
+
+    @ExcelExportObject(headerName = "Name", order = 0)
+    public String getName() {
+        return name;
+    }
+
+    @ExcelExportObject(headerName = "Manager", order = 1)
+    public Employee getManager() {
+        return manager;
+    }
+}
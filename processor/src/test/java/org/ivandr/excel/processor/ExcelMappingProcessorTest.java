@@ -0,0 +1,143 @@
+package org.ivandr.excel.processor;
+
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.Row;
+import org.ivandr.excel.mapper.fastexcel.FastExcelMapperFactory;
+import org.ivandr.excel.mapper.fastexcel.FastExcelMappingDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelMappingProcessorTest {
+
+    @Test
+    void definitionsAreGeneratedAndRegistered() {
+        var mappedClasses = ServiceLoader.load(FastExcelMappingDefinition.class).stream()
+                .map(provider -> provider.get().getMappedClass())
+                .toList();
+
+        assertTrue(mappedClasses.containsAll(List.of(
+                Order.class, Order.Customer.class, Order.Line.class, UrgentOrder.class)));
+        assertEquals(Order.class, new Order_ExcelMapping().getMappedClass());
+        assertEquals(Order.Line.class, new Order_Line_ExcelMapping().getMappedClass());
+    }
+
+    @Test
+    void generatedMappingExportsSameTableAsReflection() throws IOException {
+        var orders = List.of(
+                createOrder("A-1"),
+                new Order("A-2", null, null, null),
+                new UrgentOrder("A-3", LocalDate.of(2024, 2, 3), null, List.of(), 2));
+
+        var generated = export(new FastExcelMapperFactory(), Order.class, orders);
+        var reflected = export(FastExcelMapperFactory.builder().generatedMappings(false).build(),
+                Order.class, orders);
+
+        assertEquals(reflected, generated);
+        assertTrue(generated.get(0).contains("Number \"N\""));
+        assertTrue(generated.stream().anyMatch(row -> row.contains("unknown")));
+        assertTrue(generated.stream().anyMatch(row -> row.contains("Packages")));
+    }
+
+    @Test
+    void generatedMappingRespectsOverriddenGetters() throws IOException {
+        var order = new UrgentOrder("B-1", LocalDate.of(2024, 5, 6),
+                new Order.Customer("Customer", null), List.of(new Order.Line("Pen", 2, 1.5)), 1);
+
+        var generated = export(new FastExcelMapperFactory(), UrgentOrder.class, List.of(order));
+        var reflected = export(FastExcelMapperFactory.builder().generatedMappings(false).build(),
+                UrgentOrder.class, List.of(order));
+
+        assertEquals(reflected, generated);
+        assertTrue(generated.get(0).contains("Priority"));
+        assertFalse(generated.stream().anyMatch(row -> row.contains("Pen")));
+    }
+
+    @Test
+    void generatedMappingReadsAccessibleFields() throws IOException {
+        var mappedClasses = ServiceLoader.load(FastExcelMappingDefinition.class).stream()
+                .map(provider -> provider.get().getMappedClass())
+                .toList();
+        assertTrue(mappedClasses.contains(Shipment.class));
+        assertFalse(mappedClasses.contains(Shipment.Tracked.class));
+
+        var shipments = List.of(new Shipment("Post", 1.5), new Shipment.Tracked("Courier", 2, "T-1"));
+        var generated = export(new FastExcelMapperFactory(), Shipment.class, shipments);
+        var reflected = export(FastExcelMapperFactory.builder().generatedMappings(false).build(),
+                Shipment.class, shipments);
+        assertEquals(reflected, generated);
+        assertTrue(generated.get(1).contains("Post"));
+
+        var tracked = export(new FastExcelMapperFactory(), Shipment.Tracked.class,
+                List.of(new Shipment.Tracked("Courier", 2, "T-1")));
+        assertTrue(tracked.get(1).contains("T-1"));
+    }
+
+    @Test
+    void cyclicMappingIsLeftToReflection() throws IOException {
+        var mappedClasses = ServiceLoader.load(FastExcelMappingDefinition.class).stream()
+                .map(provider -> provider.get().getMappedClass())
+                .toList();
+        assertFalse(mappedClasses.contains(Employee.class));
+
+        var employee = new Employee("Employee", new Employee("Manager", null));
+        var rows = export(FastExcelMapperFactory.builder().maximumDepth(2).build(), Employee.class, List.of(employee));
+        assertTrue(rows.get(2).contains("Manager"));
+    }
+
+    @Test
+    void depthBoundsApplyWithGeneratedMappings() throws IOException {
+        var orders = List.of(createOrder("C-1"));
+        var generated = export(FastExcelMapperFactory.builder().maximumDepth(1).build(), Order.class, orders);
+        var reflected = export(FastExcelMapperFactory.builder().generatedMappings(false).maximumDepth(1).build(),
+                Order.class, orders);
+
+        assertEquals(reflected, generated);
+        // customer and lines are exported as values, so their columns are not expanded
+        assertFalse(generated.get(0).contains("Product"));
+    }
+
+    @Test
+    void generatedMappingReadsPrimitivesWithoutBoxing() throws IOException {
+        var source = Files.readString(Path.of("target/generated-test-sources/test-annotations",
+                "org/ivandr/excel/processor/Order_Line_ExcelMapping.java"));
+
+        assertTrue(source.contains("builder.intValue(FastExcelMappingBuilder.ROOT"));
+        assertTrue(source.contains("int.class, o -> ((org.ivandr.excel.processor.Order.Line) o).getQuantity())"));
+        assertTrue(source.contains("builder.doubleValue(FastExcelMappingBuilder.ROOT"));
+        assertFalse(source.contains("double.class, o ->"));
+        // arrays of primitives are still exported element by element
+        assertTrue(source.contains("builder.array(FastExcelMappingBuilder.ROOT"));
+    }
+
+    private static Order createOrder(String number) {
+        var customer = new Order.Customer("Customer of " + number, new Order("previous", null, null, null));
+        return new Order(number, LocalDate.of(2024, 1, 2), customer, List.of(
+                new Order.Line("Pen", 2, 1.5),
+                new Order.Line("Paper", 10, 0.1)));
+    }
+
+    private static <T> List<String> export(FastExcelMapperFactory factory,
+                                           Class<T> clazz,
+                                           List<? extends T> objects) throws IOException {
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, "ExcelMappingProcessorTest", "0.1");
+        var mapper = factory.createExcelMapperForClass(clazz);
+        mapper.mapEachToExcelSheet(wb.newWorksheet("Orders"), 0, 0, objects.iterator());
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            return readable.getFirstSheet().read().stream().map(Row::toString).toList();
+        }
+    }
+}
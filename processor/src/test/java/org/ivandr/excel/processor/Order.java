@@ -0,0 +1,101 @@
+package org.ivandr.excel.processor;
+
+import org.ivandr.excel.annotations.ExcelCellStyle;
+import org.ivandr.excel.annotations.ExcelExportObject;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class Order {
+    private final String number;
+    private final LocalDate created;
+    private final Customer customer;
+    private final List<Line> lines;
+
+    public Order(String number, LocalDate created, Customer customer, List<Line> lines) {
+        this.number = number;
+        this.created = created;
+        this.customer = customer;
+        this.lines = lines;
+    }
+
+    @ExcelExportObject(headerName = "Number \"N\"", order = 0,
+            valueStyle = @ExcelCellStyle(isBold = true))
+    public String getNumber() {
+        return number;
+    }
+
+    @ExcelExportObject(headerName = "Created", order = 2, valueFallback = "unknown")
+    public LocalDate getCreated() {
+        return created;
+    }
+
+    @ExcelExportObject(headerName = "Customer", order = 1)
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    @ExcelExportObject(headerName = "Lines", order = 3)
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    @ExcelExportObject(headerName = "Total", order = 4)
+    public double getTotal() {
+        return lines == null ? 0 : lines.stream().mapToDouble(l -> l.getQuantity() * l.getPrice()).sum();
+    }
+
+    public record Customer(String name, Order lastOrder) {
+        @ExcelExportObject(headerName = "Name", order = 0)
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * refers back to order, so it must not be recursive
+         */
+        @ExcelExportObject(headerName = "Last order", order = 1, isRecursive = false)
+        public Order getLastOrder() {
+            return lastOrder;
+        }
+    }
+
+    public static class Line {
+        private final String product;
+        private final int quantity;
+        private final double price;
+
+        public Line(String product, int quantity, double price) {
+            this.product = product;
+            this.quantity = quantity;
+            this.price = price;
+        }
+
+        @ExcelExportObject(headerName = "Product", order = 0)
+        public String getProduct() {
+            return product;
+        }
+
+        @ExcelExportObject(headerName = "Quantity", order = 1)
+        public int getQuantity() {
+            return quantity;
+        }
+
+        @ExcelExportObject(headerName = "Price", order = 2)
+        public double getPrice() {
+            return price;
+        }
+
+        /**
+         * quantity split into packages of at most 4 items
+         */
+        @ExcelExportObject(headerName = "Packages", order = 3)
+        public int[] getPackages() {
+            var packages = new int[(quantity + 3) / 4];
+            for (int i = 0; i < packages.length; i++) {
+                packages[i] = Math.min(4, quantity - i * 4);
+            }
+            return packages;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.ivandr.excel.processor;
+
+import org.ivandr.excel.annotations.ExcelExportObject;
+
+/**
+ * Exported by fields, which are read directly by generated mapping
+ */
+public class Shipment {
+    @ExcelExportObject(headerName = "Carrier", order = 0)
+    final String carrier;
+    @ExcelExportObject(headerName = "Weight", order = 1)
+    final double weight;
+
+    public Shipment(String carrier, double weight) {
+        this.carrier = carrier;
+        this.weight = weight;
+    }
+
+    /**
+     * private field could not be read by generated mapping, so reflection is used
+     */
+    public static class Tracked extends Shipment {
+        @ExcelExportObject(headerName = "Tracking", order = 2)
+        private final String tracking;
+
+        public Tracked(String carrier, double weight, String tracking) {
+            super(carrier, weight);
+            this.tracking = tracking;
+        }
+    }
+}
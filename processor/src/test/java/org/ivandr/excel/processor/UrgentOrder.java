@@ -0,0 +1,28 @@
+package org.ivandr.excel.processor;
+
+import org.ivandr.excel.annotations.ExcelExportObject;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class UrgentOrder extends Order {
+    private final int priority;
+
+    public UrgentOrder(String number, LocalDate created, Customer customer, List<Line> lines, int priority) {
+        super(number, created, customer, lines);
+        this.priority = priority;
+    }
+
+    @ExcelExportObject(headerName = "Priority", order = 5)
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * overridden without annotation, so lines are not exported
+     */
+    @Override
+    public List<Line> getLines() {
+        return super.getLines();
+    }
+}
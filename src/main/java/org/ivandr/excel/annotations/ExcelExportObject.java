@@ -8,7 +8,11 @@ import org.ivandr.excel.enums.ExcelCellVerticalAlignment;
 
 import java.lang.annotation.*;
 
-@Target(ElementType.METHOD)
+/**
+ * Marks exported getter or field. Fields are read directly (also private ones) and are not looked up in records,
+ * because annotation of record component is propagated to its accessor.
+ */
+@Target({ElementType.METHOD, ElementType.FIELD})
 @Retention(RetentionPolicy.RUNTIME)
 @Inherited
 public @interface ExcelExportObject {
@@ -0,0 +1,30 @@
+package org.ivandr.excel.basics;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.BorderStyle;
+import org.ivandr.excel.annotations.ExcelCellStyle;
+import org.ivandr.excel.enums.ExcelCellHorizontalAlignment;
+import org.ivandr.excel.enums.ExcelCellVerticalAlignment;
+
+/**
+ * Values of {@link ExcelCellStyle}, which could be created without reflection
+ */
+public record ExcelCellStyleInfo(boolean isBold,
+                                 boolean isItalic,
+                                 boolean isUnderlined,
+                                 boolean isWrapText,
+                                 int fontSize,
+                                 @NonNull BorderStyle borderStyle,
+                                 @NonNull ExcelCellHorizontalAlignment horizontalAlignment,
+                                 @NonNull ExcelCellVerticalAlignment verticalAlignment,
+                                 @NonNull String cellFormat) {
+    @NonNull
+    public static ExcelCellStyleInfo of(@NonNull ExcelCellStyle style) {
+        return new ExcelCellStyleInfo(
+                style.isBold(), style.isItalic(), style.isUnderlined(), style.isWrapText(),
+                style.fontSize(), style.borderStyle(),
+                style.horizontalAlignment(), style.verticalAlignment(),
+                style.cellFormat()
+        );
+    }
+}
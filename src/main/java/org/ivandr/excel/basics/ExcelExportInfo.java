@@ -0,0 +1,26 @@
+package org.ivandr.excel.basics;
+
+import lombok.NonNull;
+import org.ivandr.excel.annotations.ExcelExportObject;
+
+/**
+ * Values of {@link ExcelExportObject}, which could be created without reflection
+ */
+public record ExcelExportInfo(@NonNull String headerName,
+                              int order,
+                              @NonNull ExcelCellStyleInfo headerStyle,
+                              @NonNull ExcelCellStyleInfo valueStyle,
+                              @NonNull String valueFallback,
+                              boolean isRecursive) {
+    @NonNull
+    public static ExcelExportInfo of(@NonNull ExcelExportObject exportObject) {
+        return new ExcelExportInfo(
+                exportObject.headerName(),
+                exportObject.order(),
+                ExcelCellStyleInfo.of(exportObject.headerStyle()),
+                ExcelCellStyleInfo.of(exportObject.valueStyle()),
+                exportObject.valueFallback(),
+                exportObject.isRecursive()
+        );
+    }
+}
@@ -0,0 +1,24 @@
+package org.ivandr.excel.basics;
+
+/**
+ * Cells taken by one exported table (headers included)
+ * @param row upper row of table
+ * @param column left column of table
+ * @param rows number of rows of table
+ * @param columns number of columns of table
+ */
+public record ExcelTableExtent(int row, int column, int rows, int columns) {
+    /**
+     * @return first row under the table
+     */
+    public int nextRow() {
+        return row + rows;
+    }
+
+    /**
+     * @return first column to the right of the table
+     */
+    public int nextColumn() {
+        return column + columns;
+    }
+}
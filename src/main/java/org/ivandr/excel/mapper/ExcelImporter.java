@@ -0,0 +1,24 @@
+package org.ivandr.excel.mapper;
+
+import lombok.NonNull;
+
+import java.util.stream.Stream;
+
+/**
+ * Reverse of {@link ExcelMapper}, reads objects from the table created by mapper of the same class
+ * @param <S> type of sheet
+ * @param <T> type of read objects
+ */
+public interface ExcelImporter<S, T> {
+    /**
+     * Reads the table lazily, object by object
+     * @param sheet sheet from which would be done importing
+     * @param startRow left upper row of table
+     * @param startColumn left upper column of table
+     * @return objects in order of rows, stream must be closed after use
+     */
+    @NonNull
+    Stream<T> mapFromExcelSheet(
+            @NonNull S sheet,
+            int startRow, int startColumn);
+}
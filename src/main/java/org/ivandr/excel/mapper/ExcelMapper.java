@@ -1,6 +1,12 @@
 package org.ivandr.excel.mapper;
 
 import lombok.NonNull;
+import org.ivandr.excel.basics.ExcelTableExtent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ExcelMapper<WS, T> {
     /**
@@ -9,9 +15,81 @@ public interface ExcelMapper<WS, T> {
      * @param startColumn left upper column of table
      * @param worksheet worksheet to which would dbe done exporting
      * @param object object which would be exported to specific worksheet
+     * @return cells taken by the table
      */
-    void mapToExcelSheet(
+    @NonNull
+    ExcelTableExtent mapToExcelSheet(
             @NonNull WS worksheet,
             int startRow, int startColumn,
             T object);
+
+    /**
+     * Creates table of each object (with its own headers), tables are stacked one under another
+     * @param worksheet worksheet to which would be done exporting
+     * @param startRow upper row of the first table
+     * @param startColumn left column of tables
+     * @param objects objects which would be exported in iteration order
+     * @param gap number of empty rows between tables
+     * @return cells taken by each table in iteration order
+     */
+    @NonNull
+    default List<ExcelTableExtent> mapAll(
+            @NonNull WS worksheet,
+            int startRow, int startColumn,
+            @NonNull Iterable<? extends T> objects,
+            int gap) {
+        if (gap < 0)
+            throw new IllegalArgumentException("Gap between tables must not be negative");
+        var extents = new ArrayList<ExcelTableExtent>();
+        int row = startRow;
+        for (T object : objects) {
+            var extent = mapToExcelSheet(worksheet, row, startColumn, object);
+            extents.add(extent);
+            row = extent.nextRow() + gap;
+        }
+        return extents;
+    }
+
+    /**
+     * Writes headers of the table and opens session, which exports objects one by one,
+     * so only one object is held in memory at the time
+     * @param worksheet worksheet to which would be done exporting
+     * @param startRow left upper row of table
+     * @param startColumn left upper column of table
+     * @return writer, which must be closed after the last object
+     */
+    @NonNull
+    ExcelSheetWriter<T> openSheetWriter(
+            @NonNull WS worksheet,
+            int startRow, int startColumn);
+
+    /**
+     * Creates one table in worksheet, where each object takes its own rows under common headers
+     * @param worksheet worksheet to which would be done exporting
+     * @param startRow left upper row of table
+     * @param startColumn left upper column of table
+     * @param objects objects which would be exported in iteration order
+     */
+    default void mapEachToExcelSheet(
+            @NonNull WS worksheet,
+            int startRow, int startColumn,
+            @NonNull Iterator<? extends T> objects) {
+        try (var writer = openSheetWriter(worksheet, startRow, startColumn)) {
+            while (objects.hasNext()) {
+                writer.append(objects.next());
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #mapEachToExcelSheet(Object, int, int, Iterator)}, stream is consumed lazily
+     */
+    default void mapEachToExcelSheet(
+            @NonNull WS worksheet,
+            int startRow, int startColumn,
+            @NonNull Stream<? extends T> objects) {
+        try (objects) {
+            mapEachToExcelSheet(worksheet, startRow, startColumn, objects.iterator());
+        }
+    }
 }
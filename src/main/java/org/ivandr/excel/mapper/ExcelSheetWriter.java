@@ -0,0 +1,25 @@
+package org.ivandr.excel.mapper;
+
+/**
+ * Writing session of one table, where headers are written once and
+ * each appended object is exported right after the previous one
+ * @param <T> type of exported objects
+ */
+public interface ExcelSheetWriter<T> extends AutoCloseable {
+    /**
+     * Exports object as the next rows of the table
+     * @param object object which would be exported below already written ones
+     */
+    void append(T object);
+
+    /**
+     * @return row, from which next appended object would be exported
+     */
+    int getNextRow();
+
+    /**
+     * Finishes the session, all rows written so far are flushed
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,87 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only list views of arrays, so arrays could be exported as collections without copying
+ */
+final class FastExcelArrays {
+    private FastExcelArrays() {
+    }
+
+    /**
+     * @param array array of objects or primitives
+     * @return view of array, primitives are boxed on access
+     */
+    @NonNull
+    static List<Object> asList(@NonNull Object array) {
+        if (array instanceof Object[] objects) return Arrays.asList(objects);
+        if (array instanceof int[] ints) return new View(ints.length) {
+            @Override
+            public Object get(int index) {
+                return ints[index];
+            }
+        };
+        if (array instanceof long[] longs) return new View(longs.length) {
+            @Override
+            public Object get(int index) {
+                return longs[index];
+            }
+        };
+        if (array instanceof double[] doubles) return new View(doubles.length) {
+            @Override
+            public Object get(int index) {
+                return doubles[index];
+            }
+        };
+        if (array instanceof float[] floats) return new View(floats.length) {
+            @Override
+            public Object get(int index) {
+                return floats[index];
+            }
+        };
+        if (array instanceof short[] shorts) return new View(shorts.length) {
+            @Override
+            public Object get(int index) {
+                return shorts[index];
+            }
+        };
+        if (array instanceof byte[] bytes) return new View(bytes.length) {
+            @Override
+            public Object get(int index) {
+                return bytes[index];
+            }
+        };
+        if (array instanceof char[] chars) return new View(chars.length) {
+            @Override
+            public Object get(int index) {
+                return chars[index];
+            }
+        };
+        if (array instanceof boolean[] booleans) return new View(booleans.length) {
+            @Override
+            public Object get(int index) {
+                return booleans[index];
+            }
+        };
+        throw new IllegalArgumentException("Value is not an array: " + array.getClass().getName());
+    }
+
+    private abstract static class View extends AbstractList<Object> implements RandomAccess {
+        private final int size;
+
+        private View(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * Loader of association of one getter (e.g. lazy collection of ORM entity),
+ * which is called before the getter is invoked on any of owners, so association could be loaded in bulk
+ * @see FastExcelPrefetch
+ */
+@FunctionalInterface
+public interface FastExcelAssociationLoader {
+    /**
+     * @param owners objects, on which getter is going to be invoked (not null, at most batch size of them)
+     */
+    void load(@NonNull List<Object> owners);
+}
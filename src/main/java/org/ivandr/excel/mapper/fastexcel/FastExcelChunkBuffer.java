@@ -0,0 +1,242 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.util.Arrays;
+
+/**
+ * Laid out cells of a chunk of objects kept by columns, column is indexed by leaf ordinal
+ * (position of leaf in header, see {@link FastExcelExportPlan#getLeafColumns()}).
+ * Primitive leaves keep raw bits (see {@link FastExcelPrimitiveKind}), other leaves keep their values,
+ * missing values (written as fallback) are marked in null bitmap, so primitive columns need no boxing.
+ * Chunk is laid out once (getters are invoked only by {@link #add(Object)}) and written later,
+ * e.g. chunks are laid out by workers and written to one worksheet by one thread.
+ * Arrays are kept by {@link #clear()}, so buffer reused between chunks does not allocate in steady state.
+ * Buffer must not be shared by threads at the same time.
+ * Objects are reported to listener when chunk is written, write time of chunk is shared
+ * by its objects in proportion to their cells, because cells are written by columns, not by objects.
+ */
+final class FastExcelChunkBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int OBJECT_STATS = 4;
+
+    @NonNull
+    private final FastExcelExportPlan plan;
+    @NonNull
+    private final FastExcelRecordLayout layout;
+    @NonNull
+    private final FastExcelExportListener listener;
+
+    /**
+     * row offset of cell from the first row of chunk by leaf ordinal
+     */
+    @NonNull
+    private final int[][] rows;
+    /**
+     * number of merged rows of cell, cells covered by merged region have zero span and are only styled
+     */
+    @NonNull
+    private final int[][] spans;
+    /**
+     * raw bits of cells of primitive leaves (null for other leaves)
+     */
+    @NonNull
+    private final long[][] bits;
+    /**
+     * values of cells of other leaves (null for primitive leaves)
+     */
+    @NonNull
+    private final Object[][] values;
+    /**
+     * bit of cell is set if its value is missing
+     */
+    @NonNull
+    private final long[][] nulls;
+    @NonNull
+    private final int[] counts;
+
+    /**
+     * rows, cells with values, merged regions and all cells of each added object (kept only if somebody listens)
+     */
+    private int[] objectStats;
+    /**
+     * layout time of each added object (kept only if somebody listens)
+     */
+    private long[] objectLayoutNanos;
+
+    /**
+     * number of added objects
+     */
+    @Getter
+    private int objectCount;
+    /**
+     * number of rows taken by added objects
+     */
+    @Getter
+    private int rowCount;
+    /**
+     * number of cells of added objects (including cells covered by merged regions)
+     */
+    @Getter
+    private int cellCount;
+
+    FastExcelChunkBuffer(@NonNull FastExcelExportPlan plan,
+                         @NonNull FastExcelRecordLayout layout,
+                         @NonNull FastExcelExportListener listener) {
+        int columns = plan.getLeaves().length;
+        this.plan = plan;
+        this.layout = layout;
+        this.listener = listener;
+        this.rows = new int[columns][INITIAL_CAPACITY];
+        this.spans = new int[columns][INITIAL_CAPACITY];
+        this.bits = new long[columns][];
+        this.values = new Object[columns][];
+        this.nulls = new long[columns][INITIAL_CAPACITY / Long.SIZE];
+        this.counts = new int[columns];
+
+        for (int column = 0; column < columns; column++) {
+            if (plan.getPrimitiveKinds()[plan.getLeaves()[column]] != null) {
+                this.bits[column] = new long[INITIAL_CAPACITY];
+            } else {
+                this.values[column] = new Object[INITIAL_CAPACITY];
+            }
+        }
+        if (listener != FastExcelExportListener.NONE) {
+            this.objectStats = new int[INITIAL_CAPACITY * OBJECT_STATS];
+            this.objectLayoutNanos = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Lays out object below already added ones
+     */
+    void add(Object object) {
+        boolean measured = listener != FastExcelExportListener.NONE;
+        long started = measured ? System.nanoTime() : 0;
+        layout.layOut(object);
+        long layoutNanos = measured ? System.nanoTime() - started : 0;
+
+        int valueCells = 0;
+        int mergedRegions = 0;
+        for (int cell = 0; cell < layout.getCellCount(); cell++) {
+            int column = plan.getLeafColumns()[layout.getCellNode(cell)];
+            int index = reserve(column);
+            rows[column][index] = rowCount + layout.getCellRow(cell);
+            spans[column][index] = layout.getCellSpan(cell);
+            if (layout.getCellSpan(cell) > 0) valueCells++;
+            if (layout.getCellSpan(cell) > 1) mergedRegions++;
+
+            var value = layout.getCellValue(cell);
+            if (value == null) {
+                // covered cells are never written, so they are not marked
+                if (layout.getCellSpan(cell) > 0) nulls[column][index >>> 6] |= 1L << index;
+            } else if (value == FastExcelRecordLayout.PRIMITIVE) {
+                bits[column][index] = layout.getCellBits(cell);
+            } else {
+                values[column][index] = value;
+            }
+        }
+        if (measured) recordObject(valueCells, mergedRegions, layoutNanos);
+        objectCount++;
+        rowCount += layout.getRowCount();
+        cellCount += layout.getCellCount();
+    }
+
+    /**
+     * Writes chunk column by column, so worksheet should be flushed only after the whole chunk.
+     * Cells are styled after all of them are written, by blocks of neighbouring columns with the same style
+     * @return number of written rows
+     */
+    int write(@NonNull Worksheet worksheet, int startRow, int startColumn,
+              @NonNull FastExcelStyleRegistry.Styles styles) {
+        boolean measured = listener != FastExcelExportListener.NONE;
+        long started = measured ? System.nanoTime() : 0;
+        for (int column = 0; column < counts.length; column++) {
+            int node = plan.getLeaves()[column];
+            int sheetColumn = startColumn + column;
+            int styleId = plan.getValueStyleIds()[node];
+            var primitiveKind = plan.getPrimitiveKinds()[node];
+            var writer = plan.getValueWriters()[node];
+            var fallback = plan.getExportMetaInfos()[node].valueFallback();
+
+            for (int index = 0; index < counts[column]; index++) {
+                int row = startRow + rows[column][index];
+                int rowSpan = spans[column][index];
+                if (rowSpan > 0) {
+                    if ((nulls[column][index >>> 6] & (1L << index)) != 0) {
+                        worksheet.value(row, sheetColumn, fallback);
+                    } else if (primitiveKind != null) {
+                        primitiveKind.write(worksheet, row, sheetColumn, bits[column][index]);
+                    } else {
+                        writer.write(worksheet, row, sheetColumn, values[column][index]);
+                    }
+                    if (rowSpan > 1) worksheet.range(row, sheetColumn, row + rowSpan - 1, sheetColumn).merge();
+                }
+                styles.mark(column, styleId, row, sheetColumn);
+            }
+        }
+        // cells of column are on consecutive rows, so chunk is styled by a few blocks
+        styles.applyMarked(worksheet);
+        if (measured) reportObjects(System.nanoTime() - started);
+        return rowCount;
+    }
+
+    /**
+     * Keeps stats of object, which was just laid out
+     */
+    private void recordObject(int valueCells, int mergedRegions, long layoutNanos) {
+        if (objectCount == objectLayoutNanos.length) {
+            objectStats = Arrays.copyOf(objectStats, objectStats.length * 2);
+            objectLayoutNanos = Arrays.copyOf(objectLayoutNanos, objectLayoutNanos.length * 2);
+        }
+        int offset = objectCount * OBJECT_STATS;
+        objectStats[offset] = layout.getRowCount();
+        objectStats[offset + 1] = valueCells;
+        objectStats[offset + 2] = mergedRegions;
+        objectStats[offset + 3] = layout.getCellCount();
+        objectLayoutNanos[objectCount] = layoutNanos;
+    }
+
+    /**
+     * Reports written objects in order of adding
+     * @param writeNanos time of writing of the whole chunk
+     */
+    private void reportObjects(long writeNanos) {
+        for (int object = 0; object < objectCount; object++) {
+            int offset = object * OBJECT_STATS;
+            int cells = objectStats[offset + 3];
+            listener.objectWritten(objectStats[offset], objectStats[offset + 1], objectStats[offset + 2], cells,
+                    objectLayoutNanos[object], cellCount == 0 ? 0 : writeNanos * cells / cellCount);
+        }
+    }
+
+    /**
+     * Discards added objects, arrays are kept for the next chunk
+     */
+    void clear() {
+        for (int column = 0; column < counts.length; column++) {
+            if (values[column] != null) Arrays.fill(values[column], 0, counts[column], null);
+            Arrays.fill(nulls[column], 0, (counts[column] + Long.SIZE - 1) / Long.SIZE, 0L);
+            counts[column] = 0;
+        }
+        objectCount = rowCount = cellCount = 0;
+    }
+
+    /**
+     * @return index of the next cell of column, arrays of column are grown if needed
+     */
+    private int reserve(int column) {
+        int index = counts[column]++;
+        if (index < rows[column].length) return index;
+
+        int capacity = rows[column].length * 2;
+        rows[column] = Arrays.copyOf(rows[column], capacity);
+        spans[column] = Arrays.copyOf(spans[column], capacity);
+        nulls[column] = Arrays.copyOf(nulls[column], capacity / Long.SIZE);
+        if (bits[column] != null) bits[column] = Arrays.copyOf(bits[column], capacity);
+        else values[column] = Arrays.copyOf(values[column], capacity);
+        return index;
+    }
+}
@@ -0,0 +1,59 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import jdk.jfr.*;
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+/**
+ * JFR event of one export: a table, tables of {@link FastExcelMapper#mapAll}, session of {@link FastExcelSheetWriter}
+ * or partition of {@link FastExcelParallelExporter}.
+ * Bytes are not reported, because workbook stream is shared by worksheets and owned by caller.
+ */
+@Name("org.ivandr.excel.Export")
+@Label("Excel Export")
+@Category("Excel Mapper")
+@Description("Objects are exported to worksheet")
+final class FastExcelExportEvent extends Event {
+    @Label("Mapped Class")
+    Class<?> mappedClass;
+
+    @Label("Worksheet")
+    String worksheet;
+
+    @Label("Objects")
+    long objects;
+
+    @Label("Rows")
+    @Description("Rows of values, headers are not included")
+    long rows;
+
+    @Label("Cells")
+    @Description("Cells of values, including cells covered by merged regions")
+    long cells;
+
+    /**
+     * Counts exported object (it is cheap, when event is disabled)
+     */
+    void add(int rows, int cells) {
+        add(1, rows, cells);
+    }
+
+    /**
+     * Counts exported objects, e.g. of written chunk
+     */
+    void add(int objects, int rows, int cells) {
+        this.objects += objects;
+        this.rows += rows;
+        this.cells += cells;
+    }
+
+    /**
+     * Commits event if it is enabled and exceeds threshold
+     */
+    void commit(@NonNull Class<?> mappedClass, @NonNull Worksheet worksheet) {
+        if (!shouldCommit()) return;
+        this.mappedClass = mappedClass;
+        this.worksheet = worksheet.getName();
+        commit();
+    }
+}
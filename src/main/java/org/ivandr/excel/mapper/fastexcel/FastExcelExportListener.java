@@ -0,0 +1,59 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * Listener of export phases, which is registered by {@link FastExcelMapperFactory.FastExcelMapperFactoryBuilder#listener}
+ * or {@link FastExcelMapper#withListener(FastExcelExportListener)}.
+ * Clock is read only if listener is registered, mapper without listener only checks that it is {@link #NONE}.
+ * Methods are called by exporting threads (possibly by many at the same time), so they must be thread safe and fast.
+ * Times are in nanoseconds.
+ */
+public interface FastExcelExportListener {
+    /**
+     * listener, which ignores everything (mapper does not measure anything)
+     */
+    FastExcelExportListener NONE = new FastExcelExportListener() {
+    };
+
+    /**
+     * @param mappedClass class of created mapper
+     * @param nanos time of mapping reflection (or definition) and plan compilation
+     */
+    default void mapperCreated(@NonNull Class<?> mappedClass, long nanos) {
+    }
+
+    /**
+     * @param headerPath header path of getter (header names from the top header)
+     * @param nanos time of one invocation of getter (iteration of returned collection is not included)
+     */
+    default void getterInvoked(@NonNull List<String> headerPath, long nanos) {
+    }
+
+    /**
+     * @param rows rows taken by object
+     * @param cells cells written with values (including fallbacks)
+     * @param mergedRegions regions merged by values of object
+     * @param styledCells cells, to which style was applied
+     * @param layoutNanos time of extraction of values (getters included) and placement of cells
+     * @param writeNanos time of writing of cells, styles and merges to worksheet
+     */
+    default void objectWritten(int rows, int cells, int mergedRegions, int styledCells,
+                               long layoutNanos, long writeNanos) {
+    }
+
+    /**
+     * Style is built in workbook only once, when it is used for the first time
+     * @param nanos time of style lookup, which built style in workbook
+     */
+    default void styleResolved(long nanos) {
+    }
+
+    /**
+     * @param nanos time of worksheet flush
+     */
+    default void worksheetFlushed(long nanos) {
+    }
+}
@@ -0,0 +1,382 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import com.google.common.graph.Graph;
+import lombok.Getter;
+import lombok.NonNull;
+import org.ivandr.excel.annotations.ExcelExportObject;
+import org.ivandr.excel.basics.ExcelExportInfo;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Mapping tree compiled into flat arrays, so export does not need any graph lookups.
+ * Nodes are indexed in depth first pre-order, where children are sorted by {@link ExcelExportObject#order()},
+ * root has index 0. Leaves (value columns) are in the same order as headers.
+ */
+@SuppressWarnings("UnstableApiUsage")
+@Getter
+final class FastExcelExportPlan {
+    static final int ROOT = 0;
+    static final int NO_PARENT = -1;
+    static final int NOT_LEAF = -1;
+
+    @NonNull
+    private final FastExcelMappingNode[] nodes;
+    @NonNull
+    private final int[] parents;
+    @NonNull
+    private final int[][] children;
+    @NonNull
+    private final int[] treeHeights;
+    @NonNull
+    private final boolean[] collectionMappings;
+    /**
+     * getter of node (null for root and for collection mappings)
+     */
+    @NonNull
+    private final FastExcelMappingNode.ValueGetter[] valueGetters;
+    /**
+     * getter of node (null for root and for value mappings)
+     */
+    @NonNull
+    private final FastExcelMappingNode.CollectionGetter[] collectionGetters;
+    /**
+     * meta info of node (null for root)
+     */
+    @NonNull
+    private final ExcelExportInfo[] exportMetaInfos;
+    /**
+     * column offset of leaf, {@link #NOT_LEAF} for inner nodes
+     */
+    @NonNull
+    private final int[] leafColumns;
+    /**
+     * index of leaf node by column offset
+     */
+    @NonNull
+    private final int[] leaves;
+    /**
+     * distinct styles of headers and values, position in list is the style id
+     */
+    @NonNull
+    private final List<FastExcelStyleRegistry.CellStyle> styles;
+    /**
+     * style id of values of leaf, {@link #NOT_LEAF} for inner nodes
+     */
+    @NonNull
+    private final int[] valueStyleIds;
+    /**
+     * writer of values of leaf (null for inner nodes)
+     */
+    @NonNull
+    private final FastExcelValueWriter<Object>[] valueWriters;
+    /**
+     * kind of primitive leaf, which is read and written unboxed (null for other nodes)
+     */
+    @NonNull
+    private final FastExcelPrimitiveKind[] primitiveKinds;
+    /**
+     * unboxed getter of primitive leaf (null for other nodes)
+     */
+    @NonNull
+    private final FastExcelMappingNode.PrimitiveGetter[] primitiveGetters;
+    private final int maxTreeHeight;
+    /**
+     * number of columns taken by header of node
+     */
+    @NonNull
+    private final int[] headerWidths;
+    /**
+     * number of rows taken by header of node
+     */
+    @NonNull
+    private final int[] headerHeights;
+    /**
+     * header cells with coordinates relative to left upper corner of the table
+     */
+    @NonNull
+    private final List<FastExcelHeaderCell> headerCells;
+    /**
+     * header cells compiled for stamping
+     */
+    @NonNull
+    private final FastExcelHeaderBlock headerBlock;
+
+    @SuppressWarnings("unchecked")
+    private FastExcelExportPlan(@NonNull List<FastExcelMappingNode> orderedNodes,
+                                @NonNull Map<FastExcelMappingNode, Integer> indexes,
+                                @NonNull Graph<FastExcelMappingNode> treeGraph,
+                                @NonNull FastExcelValueWriters valueWriters) {
+        int size = orderedNodes.size();
+        this.nodes = orderedNodes.toArray(new FastExcelMappingNode[0]);
+        this.parents = new int[size];
+        this.children = new int[size][];
+        this.treeHeights = new int[size];
+        this.collectionMappings = new boolean[size];
+        this.valueGetters = new FastExcelMappingNode.ValueGetter[size];
+        this.collectionGetters = new FastExcelMappingNode.CollectionGetter[size];
+        this.exportMetaInfos = new ExcelExportInfo[size];
+        this.leafColumns = new int[size];
+        this.valueStyleIds = new int[size];
+        this.valueWriters = new FastExcelValueWriter[size];
+        this.primitiveKinds = new FastExcelPrimitiveKind[size];
+        this.primitiveGetters = new FastExcelMappingNode.PrimitiveGetter[size];
+        this.headerWidths = new int[size];
+        this.headerHeights = new int[size];
+
+        var styleIds = new LinkedHashMap<FastExcelStyleRegistry.CellStyle, Integer>();
+        var leafList = new ArrayList<Integer>();
+        int maxHeight = 0;
+        for (int i = 0; i < size; i++) {
+            var node = this.nodes[i];
+            var predecessors = treeGraph.predecessors(node);
+            this.parents[i] = predecessors.isEmpty() ? NO_PARENT : indexes.get(predecessors.iterator().next());
+            this.children[i] = sortedSuccessors(treeGraph, node).stream().mapToInt(indexes::get).toArray();
+            this.treeHeights[i] = node.getTreeHeight();
+            this.collectionMappings[i] = node.isCollectionMapping();
+            this.valueGetters[i] = node.getValueGetter().orElse(null);
+            this.collectionGetters[i] = node.getCollectionGetter().orElse(null);
+            this.exportMetaInfos[i] = node.getExportMetaInfo().orElse(null);
+            this.headerWidths[i] = node.getHeaderWidth();
+            this.headerHeights[i] = node.getHeaderHeight();
+
+            if (i != ROOT && this.children[i].length == 0) {
+                if (this.exportMetaInfos[i] == null)
+                    throw new IllegalStateException("Node without meta info, could not continue");
+                var registration = valueWriters.resolve(node.getClazz());
+                this.leafColumns[i] = leafList.size();
+                this.valueWriters[i] = registration.writer();
+                // custom writer of primitive wrapper gets boxed values
+                if (node.getPrimitiveGetter().isPresent() && FastExcelValueWriters.isNative(registration)) {
+                    this.primitiveGetters[i] = node.getPrimitiveGetter().get();
+                    this.primitiveKinds[i] = FastExcelPrimitiveKind.forType(node.getClazz());
+                }
+                this.valueStyleIds[i] = internStyle(styleIds, new FastExcelStyleRegistry.CellStyle(
+                        this.exportMetaInfos[i].valueStyle(), registration.cellFormat()));
+                leafList.add(i);
+            } else {
+                this.leafColumns[i] = NOT_LEAF;
+                this.valueStyleIds[i] = NOT_LEAF;
+            }
+            maxHeight = Math.max(maxHeight, this.treeHeights[i]);
+        }
+        this.leaves = leafList.stream().mapToInt(Integer::intValue).toArray();
+        this.maxTreeHeight = maxHeight;
+        this.headerCells = List.copyOf(compileHeaderCells(styleIds));
+        this.headerBlock = new FastExcelHeaderBlock(this.headerCells, this.maxTreeHeight, this.leaves.length);
+        this.styles = List.copyOf(styleIds.keySet());
+    }
+
+    /**
+     * Copies kept nodes of source plan, header sizes are fitted to kept leaves
+     * @param kept whether node of source is kept, parent of kept node must be kept too
+     */
+    @SuppressWarnings("unchecked")
+    private FastExcelExportPlan(@NonNull FastExcelExportPlan source, @NonNull boolean[] kept) {
+        int[] indexes = new int[source.size()];
+        int size = 0;
+        for (int i = 0; i < source.size(); i++) {
+            indexes[i] = kept[i] ? size++ : NO_PARENT;
+        }
+
+        this.nodes = new FastExcelMappingNode[size];
+        this.parents = new int[size];
+        this.children = new int[size][];
+        this.treeHeights = new int[size];
+        this.collectionMappings = new boolean[size];
+        this.valueGetters = new FastExcelMappingNode.ValueGetter[size];
+        this.collectionGetters = new FastExcelMappingNode.CollectionGetter[size];
+        this.exportMetaInfos = new ExcelExportInfo[size];
+        this.leafColumns = new int[size];
+        this.valueStyleIds = new int[size];
+        this.valueWriters = new FastExcelValueWriter[size];
+        this.primitiveKinds = new FastExcelPrimitiveKind[size];
+        this.primitiveGetters = new FastExcelMappingNode.PrimitiveGetter[size];
+        this.headerWidths = new int[size];
+        this.headerHeights = new int[size];
+
+        var styleIds = new LinkedHashMap<FastExcelStyleRegistry.CellStyle, Integer>();
+        var leafList = new ArrayList<Integer>();
+        int maxHeight = 0;
+        // kept nodes stay in pre-order, so parent is copied before its children
+        for (int from = 0; from < source.size(); from++) {
+            if (!kept[from]) continue;
+            int i = indexes[from];
+            this.nodes[i] = source.nodes[from];
+            this.parents[i] = from == ROOT ? NO_PARENT : indexes[source.parents[from]];
+            this.children[i] = Arrays.stream(source.children[from]).filter(child -> kept[child])
+                    .map(child -> indexes[child]).toArray();
+            this.treeHeights[i] = source.treeHeights[from];
+            this.collectionMappings[i] = source.collectionMappings[from];
+            this.valueGetters[i] = source.valueGetters[from];
+            this.collectionGetters[i] = source.collectionGetters[from];
+            this.exportMetaInfos[i] = source.exportMetaInfos[from];
+
+            if (source.isLeaf(from)) {
+                this.leafColumns[i] = leafList.size();
+                this.valueWriters[i] = source.valueWriters[from];
+                this.primitiveKinds[i] = source.primitiveKinds[from];
+                this.primitiveGetters[i] = source.primitiveGetters[from];
+                this.valueStyleIds[i] = internStyle(styleIds, source.styles.get(source.valueStyleIds[from]));
+                leafList.add(i);
+                maxHeight = Math.max(maxHeight, this.treeHeights[i]);
+            } else {
+                this.leafColumns[i] = NOT_LEAF;
+                this.valueStyleIds[i] = NOT_LEAF;
+            }
+        }
+        this.leaves = leafList.stream().mapToInt(Integer::intValue).toArray();
+        this.maxTreeHeight = maxHeight;
+
+        // the same fitting as by mapper, but only for kept leaves
+        for (int i = size - 1; i >= 0; i--) {
+            if (isLeaf(i)) {
+                this.headerWidths[i] = 1;
+                this.headerHeights[i] = 1 + maxHeight - this.treeHeights[i];
+            } else {
+                this.headerWidths[i] = Arrays.stream(this.children[i]).map(child -> this.headerWidths[child]).sum();
+                this.headerHeights[i] = i == ROOT ? 0 : 1;
+            }
+        }
+        this.headerCells = List.copyOf(compileHeaderCells(styleIds));
+        this.headerBlock = new FastExcelHeaderBlock(this.headerCells, this.maxTreeHeight, this.leaves.length);
+        this.styles = List.copyOf(styleIds.keySet());
+    }
+
+    /**
+     * Nodes are tested from root to leaves, rejected node is pruned with its sub-tree,
+     * inner node is pruned as well if none of its leaves is kept
+     * @param includes predicate of header path of node (header names from the top header)
+     * @return plan with kept nodes only, getters of pruned nodes are never invoked by it
+     * @throws IllegalArgumentException if none of leaves is kept
+     */
+    @NonNull
+    FastExcelExportPlan project(@NonNull Predicate<List<String>> includes) {
+        boolean[] kept = new boolean[size()];
+        var paths = headerPaths();
+        kept[ROOT] = true;
+        for (int i = 1; i < size(); i++) {
+            kept[i] = kept[this.parents[i]] && includes.test(paths.get(i));
+        }
+
+        // reversed pre-order visits children before parents
+        boolean[] hasLeaves = new boolean[size()];
+        for (int i = size() - 1; i > ROOT; i--) {
+            hasLeaves[i] = kept[i] && (isLeaf(i) || hasLeaves[i]);
+            kept[i] = hasLeaves[i];
+            if (hasLeaves[i]) hasLeaves[this.parents[i]] = true;
+        }
+        if (!hasLeaves[ROOT])
+            throw new IllegalArgumentException("Projection does not keep any column");
+
+        return new FastExcelExportPlan(this, kept);
+    }
+
+    /**
+     * @return header path of each node (header names from the top header, empty for root)
+     */
+    @NonNull
+    List<List<String>> headerPaths() {
+        var paths = new ArrayList<List<String>>(size());
+        paths.add(List.of());
+        for (int i = 1; i < size(); i++) {
+            var path = new ArrayList<>(paths.get(this.parents[i]));
+            path.add(this.exportMetaInfos[i].headerName());
+            paths.add(Collections.unmodifiableList(path));
+        }
+        return paths;
+    }
+
+    private static int internStyle(@NonNull Map<FastExcelStyleRegistry.CellStyle, Integer> styleIds,
+                                   @NonNull FastExcelStyleRegistry.CellStyle style) {
+        return styleIds.computeIfAbsent(style, s -> styleIds.size());
+    }
+
+    /**
+     * @param root root of the tree, header sizes must be already fitted
+     * @param treeGraph tree representation of mapping routes
+     * @param valueWriters registry, from which writers of leaves are resolved
+     * @return compiled plan
+     */
+    @NonNull
+    static FastExcelExportPlan compile(@NonNull FastExcelMappingNode root,
+                                       @NonNull Graph<FastExcelMappingNode> treeGraph,
+                                       @NonNull FastExcelValueWriters valueWriters) {
+        var orderedNodes = new ArrayList<FastExcelMappingNode>(treeGraph.nodes().size());
+        var indexes = new HashMap<FastExcelMappingNode, Integer>();
+
+        var stack = new ArrayDeque<FastExcelMappingNode>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            var node = stack.pop();
+            indexes.put(node, orderedNodes.size());
+            orderedNodes.add(node);
+
+            var successors = sortedSuccessors(treeGraph, node);
+            for (int i = successors.size() - 1; i >= 0; i--) {
+                stack.push(successors.get(i));
+            }
+        }
+
+        return new FastExcelExportPlan(orderedNodes, indexes, treeGraph, valueWriters);
+    }
+
+    private static List<FastExcelMappingNode> sortedSuccessors(@NonNull Graph<FastExcelMappingNode> treeGraph,
+                                                               @NonNull FastExcelMappingNode node) {
+        return treeGraph.successors(node).stream()
+                .sorted(Comparator.<FastExcelMappingNode>comparingInt(n -> n.getExportMetaInfo()
+                                .map(ExcelExportInfo::order).orElse(0))
+                        .thenComparingInt(FastExcelMappingNode::getId))
+                .toList();
+    }
+
+    private List<FastExcelHeaderCell> compileHeaderCells(
+            @NonNull Map<FastExcelStyleRegistry.CellStyle, Integer> styleIds) {
+        var cells = new ArrayList<FastExcelHeaderCell>(this.nodes.length - 1);
+        int[] rowOffsets = new int[this.nodes.length];
+        int[] columnOffsets = new int[this.nodes.length];
+
+        // pre-order guarantees that parent is visited before its children
+        for (int i = 0; i < this.nodes.length; i++) {
+            int row = rowOffsets[i] + this.headerHeights[i];
+            int column = columnOffsets[i];
+            for (int child : this.children[i]) {
+                rowOffsets[child] = row;
+                columnOffsets[child] = column;
+                column += this.headerWidths[child];
+            }
+
+            if (i == ROOT) continue;
+            var metaInfo = this.exportMetaInfos[i];
+            cells.add(new FastExcelHeaderCell(
+                    rowOffsets[i], columnOffsets[i],
+                    this.headerHeights[i], this.headerWidths[i],
+                    metaInfo.headerName(),
+                    internStyle(styleIds, new FastExcelStyleRegistry.CellStyle(metaInfo.headerStyle(), ""))
+            ));
+        }
+        return cells;
+    }
+
+    int size() {
+        return this.nodes.length;
+    }
+
+    boolean isLeaf(int node) {
+        return this.leafColumns[node] != NOT_LEAF;
+    }
+
+    /**
+     * @param rowOffset offset from the first row of the table
+     * @param columnOffset offset from the first column of the table
+     * @param height number of merged rows
+     * @param width number of merged columns
+     * @param styleId id of style in {@link #getStyles()}
+     */
+    record FastExcelHeaderCell(int rowOffset, int columnOffset,
+                               int height, int width,
+                               @NonNull String headerName,
+                               int styleId) {
+    }
+}
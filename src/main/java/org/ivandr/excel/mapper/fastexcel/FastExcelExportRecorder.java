@@ -0,0 +1,134 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener, which sums reported counters and times in memory (e.g. for tests or one-off diagnostics).
+ * It could be shared by threads.
+ */
+public class FastExcelExportRecorder implements FastExcelExportListener {
+    private final LongAdder mappersCreated = new LongAdder();
+    private final LongAdder mapperCreationNanos = new LongAdder();
+    private final Map<List<String>, LongAdder> getterInvocations = new ConcurrentHashMap<>();
+    private final Map<List<String>, LongAdder> getterNanos = new ConcurrentHashMap<>();
+    private final LongAdder objects = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder mergedRegions = new LongAdder();
+    private final LongAdder styledCells = new LongAdder();
+    private final LongAdder layoutNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder styleResolutions = new LongAdder();
+    private final LongAdder styleResolutionNanos = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+
+    @Override
+    public void mapperCreated(@NonNull Class<?> mappedClass, long nanos) {
+        mappersCreated.increment();
+        mapperCreationNanos.add(nanos);
+    }
+
+    @Override
+    public void getterInvoked(@NonNull List<String> headerPath, long nanos) {
+        getterInvocations.computeIfAbsent(headerPath, path -> new LongAdder()).increment();
+        getterNanos.computeIfAbsent(headerPath, path -> new LongAdder()).add(nanos);
+    }
+
+    @Override
+    public void objectWritten(int rows, int cells, int mergedRegions, int styledCells,
+                              long layoutNanos, long writeNanos) {
+        this.objects.increment();
+        this.rows.add(rows);
+        this.cells.add(cells);
+        this.mergedRegions.add(mergedRegions);
+        this.styledCells.add(styledCells);
+        this.layoutNanos.add(layoutNanos);
+        this.writeNanos.add(writeNanos);
+    }
+
+    @Override
+    public void styleResolved(long nanos) {
+        styleResolutions.increment();
+        styleResolutionNanos.add(nanos);
+    }
+
+    @Override
+    public void worksheetFlushed(long nanos) {
+        flushes.increment();
+        flushNanos.add(nanos);
+    }
+
+    public long getMappersCreated() {
+        return mappersCreated.sum();
+    }
+
+    public long getMapperCreationNanos() {
+        return mapperCreationNanos.sum();
+    }
+
+    /**
+     * @return number of invocations of getter by its header path, 0 if getter was not invoked
+     */
+    public long getGetterInvocations(@NonNull List<String> headerPath) {
+        var invocations = getterInvocations.get(headerPath);
+        return invocations == null ? 0 : invocations.sum();
+    }
+
+    /**
+     * @return total time of invocations of getter by its header path
+     */
+    public long getGetterNanos(@NonNull List<String> headerPath) {
+        var nanos = getterNanos.get(headerPath);
+        return nanos == null ? 0 : nanos.sum();
+    }
+
+    public long getObjects() {
+        return objects.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getCells() {
+        return cells.sum();
+    }
+
+    public long getMergedRegions() {
+        return mergedRegions.sum();
+    }
+
+    public long getStyledCells() {
+        return styledCells.sum();
+    }
+
+    public long getLayoutNanos() {
+        return layoutNanos.sum();
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getStyleResolutions() {
+        return styleResolutions.sum();
+    }
+
+    public long getStyleResolutionNanos() {
+        return styleResolutionNanos.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFlushNanos() {
+        return flushNanos.sum();
+    }
+}
@@ -0,0 +1,19 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of worksheet flush by {@link FastExcelSheetWriter} or {@link FastExcelParallelExporter#mapChunksToWorksheet}
+ */
+@Name("org.ivandr.excel.Flush")
+@Label("Excel Worksheet Flush")
+@Category("Excel Mapper")
+@Description("Completed rows of worksheet are written to workbook stream")
+@StackTrace(false)
+final class FastExcelFlushEvent extends Event {
+    @Label("Worksheet")
+    String worksheet;
+
+    @Label("Rows")
+    int rows;
+}
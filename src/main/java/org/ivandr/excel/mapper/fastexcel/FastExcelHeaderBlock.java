@@ -0,0 +1,78 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+import java.util.List;
+
+/**
+ * Header of mapper compiled to flat arrays of cells (relative to the upper left cell of table),
+ * so header is stamped at any position by one loop without traversal of mapping tree.
+ * Block is immutable and it is shared by all worksheets and threads.
+ */
+final class FastExcelHeaderBlock {
+    @NonNull
+    private final String[] names;
+    @NonNull
+    private final int[] styleIds;
+    @NonNull
+    private final int[] tops;
+    @NonNull
+    private final int[] lefts;
+    @NonNull
+    private final int[] bottoms;
+    @NonNull
+    private final int[] rights;
+    /**
+     * whether cell takes more than one row or column
+     */
+    @NonNull
+    private final boolean[] merged;
+    @Getter
+    private final int height;
+    @Getter
+    private final int width;
+
+    FastExcelHeaderBlock(@NonNull List<FastExcelExportPlan.FastExcelHeaderCell> cells, int height, int width) {
+        int size = cells.size();
+        this.names = new String[size];
+        this.styleIds = new int[size];
+        this.tops = new int[size];
+        this.lefts = new int[size];
+        this.bottoms = new int[size];
+        this.rights = new int[size];
+        this.merged = new boolean[size];
+        this.height = height;
+        this.width = width;
+
+        for (int i = 0; i < size; i++) {
+            var cell = cells.get(i);
+            this.names[i] = cell.headerName();
+            this.styleIds[i] = cell.styleId();
+            this.tops[i] = cell.rowOffset();
+            this.lefts[i] = cell.columnOffset();
+            this.bottoms[i] = cell.rowOffset() + cell.height() - 1;
+            this.rights[i] = cell.columnOffset() + cell.width() - 1;
+            this.merged[i] = cell.height() > 1 || cell.width() > 1;
+        }
+    }
+
+    /**
+     * Writes header names, styles and merges with upper left cell at (row, column)
+     */
+    void stamp(@NonNull Worksheet worksheet, @NonNull FastExcelStyleRegistry.Styles styles, int row, int column) {
+        for (int i = 0; i < names.length; i++) {
+            int top = row + tops[i];
+            int left = column + lefts[i];
+            int bottom = row + bottoms[i];
+            int right = column + rights[i];
+
+            worksheet.value(top, left, names[i]);
+            styles.apply(worksheet, styleIds[i], top, left, bottom, right);
+            if (merged[i]) {
+                worksheet.range(top, left, bottom, right).merge();
+            }
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import com.google.common.primitives.Primitives;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.dhatim.fastexcel.reader.Cell;
+import org.dhatim.fastexcel.reader.CellType;
+import org.dhatim.fastexcel.reader.Row;
+import org.dhatim.fastexcel.reader.Sheet;
+import org.ivandr.excel.mapper.ExcelImporter;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads objects from the table exported by {@link FastExcelMapper} of the same class.
+ * Header block is checked against headers of mapper, after that rows are streamed and grouped into records,
+ * so only rows of one record are held in memory.
+ * Each record (and each element of collection) starts at the row, where one of its own merged value cells is filled.
+ * Objects are created by no-args constructor and setters or by canonical constructor of record,
+ * which are compiled once, when importer is created.
+ * Getters without setter (e.g. computed values) are skipped, values equal to value fallback are read as nulls
+ * and collection elements, which contain only fallbacks, are treated as padding and skipped.
+ * Importer is immutable, so it could be shared by threads.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class FastExcelImporter<T> implements ExcelImporter<Sheet, T> {
+    private static final int NO_COMPONENT = -1;
+
+    /**
+     * mapper, which defines layout of the table
+     */
+    @Getter
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+    @NonNull
+    private final FastExcelExportPlan plan;
+    /**
+     * whether value of node is read (root, nodes with setter or record component)
+     */
+    @NonNull
+    private final boolean[] imported;
+    /**
+     * creator of objects of inner nodes, which are not records
+     */
+    @NonNull
+    private final Instantiator[] instantiators;
+    /**
+     * spread canonical constructor of inner nodes, which are records
+     */
+    @NonNull
+    private final MethodHandle[] recordConstructors;
+    /**
+     * default arguments of record constructors (primitives must not be null)
+     */
+    @NonNull
+    private final Object[][] recordDefaults;
+    /**
+     * setter of node value into value of parent node
+     */
+    @NonNull
+    private final ValueSetter[] setters;
+    /**
+     * index of record component of node in constructor of parent node
+     */
+    @NonNull
+    private final int[] componentIndexes;
+    @NonNull
+    private final FastExcelValueReader<Object>[] readers;
+    @NonNull
+    private final Supplier<Collection<Object>>[] collectionFactories;
+    /**
+     * component types of array mappings, collections are converted to arrays of them
+     */
+    private final Class<?>[] arrayComponentTypes;
+    /**
+     * leaves of node, which are not under collections, their cells are merged over the whole node
+     */
+    @NonNull
+    private final int[][] anchorLeaves;
+    /**
+     * all leaves of node
+     */
+    @NonNull
+    private final int[][] subtreeLeaves;
+
+    @SuppressWarnings("unchecked")
+    FastExcelImporter(@NonNull FastExcelMapper<T> mapper, @NonNull FastExcelValueReaders valueReaders) {
+        this.mapper = mapper;
+        this.plan = mapper.getPlan();
+
+        int size = plan.size();
+        this.imported = new boolean[size];
+        this.instantiators = new Instantiator[size];
+        this.recordConstructors = new MethodHandle[size];
+        this.recordDefaults = new Object[size][];
+        this.setters = new ValueSetter[size];
+        this.componentIndexes = new int[size];
+        this.readers = new FastExcelValueReader[size];
+        this.collectionFactories = new Supplier[size];
+        this.arrayComponentTypes = new Class<?>[size];
+        this.anchorLeaves = new int[size][];
+        this.subtreeLeaves = new int[size][];
+        Arrays.fill(this.componentIndexes, NO_COMPONENT);
+
+        var lookup = MethodHandles.lookup();
+        var nodes = plan.getNodes();
+        // pre-order guarantees that parent is compiled before its children
+        for (int i = 0; i < size; i++) {
+            this.anchorLeaves[i] = collectLeaves(i, false);
+            this.subtreeLeaves[i] = collectLeaves(i, true);
+
+            if (i != FastExcelExportPlan.ROOT) {
+                int parent = plan.getParents()[i];
+                if (!this.imported[parent]) continue;
+
+                var accessor = nodes[i].getAccessor().orElseThrow(() -> new IllegalArgumentException(
+                        "Import requires mapping reflected from getters or fields"));
+                var parentClass = nodes[parent].getClazz();
+                if (accessor instanceof Field field) {
+                    // final fields could not be set
+                    if (!Modifier.isFinal(field.getModifiers())) this.setters[i] = compileSetter(lookup, field);
+                    this.imported[i] = this.setters[i] != null;
+                } else if (parentClass.isRecord()) {
+                    this.componentIndexes[i] = findComponent(parentClass, (Method) accessor);
+                    this.imported[i] = this.componentIndexes[i] != NO_COMPONENT;
+                } else {
+                    var getter = (Method) accessor;
+                    var setter = findSetter(parentClass, getter);
+                    if (setter != null) this.setters[i] = compileSetter(lookup, setter);
+                    this.imported[i] = setter != null;
+                }
+                if (!this.imported[i]) continue;
+
+                if (plan.getCollectionMappings()[i]) {
+                    var type = accessorType(accessor);
+                    this.arrayComponentTypes[i] = type.getComponentType();
+                    this.collectionFactories[i] = type.isArray() ? ArrayList::new : collectionFactory(lookup, type);
+                }
+            } else {
+                this.imported[i] = true;
+            }
+
+            var clazz = nodes[i].getClazz();
+            if (i != FastExcelExportPlan.ROOT && plan.isLeaf(i)) {
+                this.readers[i] = valueReaders.resolve(clazz);
+                if (this.readers[i] == null)
+                    throw new IllegalStateException("There is no reader of " + clazz.getName() +
+                            ", it could be registered by FastExcelValueReaders#with");
+            } else if (clazz.isRecord()) {
+                compileRecordConstructor(lookup, i, clazz);
+            } else {
+                this.instantiators[i] = compileInstantiator(lookup, clazz);
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    @SneakyThrows
+    public Stream<T> mapFromExcelSheet(@NonNull Sheet sheet, int startRow, int startColumn) {
+        var rows = sheet.openStream();
+        try {
+            var records = new RecordIterator(rows.iterator(), startRow, startColumn);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                            Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(rows::close);
+        } catch (RuntimeException e) {
+            rows.close();
+            throw e;
+        }
+    }
+
+    private int[] collectLeaves(int node, boolean underCollections) {
+        var leaves = new ArrayList<Integer>();
+        var stack = new ArrayDeque<Integer>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (current != FastExcelExportPlan.ROOT && plan.isLeaf(current)) {
+                leaves.add(current);
+                continue;
+            }
+            for (int child : plan.getChildren()[current]) {
+                if (underCollections || !plan.getCollectionMappings()[child]) stack.push(child);
+            }
+        }
+        return leaves.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private static int findComponent(@NonNull Class<?> recordClass, @NonNull Method getter) {
+        var components = recordClass.getRecordComponents();
+        var property = decapitalize(propertyName(getter));
+        for (int i = 0; i < components.length; i++) {
+            if (components[i].getAccessor().equals(getter) || components[i].getName().equals(property))
+                return i;
+        }
+        return NO_COMPONENT;
+    }
+
+    private static Method findSetter(@NonNull Class<?> clazz, @NonNull Method getter) {
+        var name = "set" + propertyName(getter);
+        return Arrays.stream(clazz.getMethods())
+                .filter(m -> m.getName().equals(name) &&
+                        !Modifier.isStatic(m.getModifiers()) &&
+                        m.getParameterCount() == 1 &&
+                        m.getParameterTypes()[0].isAssignableFrom(getter.getReturnType()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * @return capitalized name of property (e.g. Name for getName)
+     */
+    @NonNull
+    private static String propertyName(@NonNull Method getter) {
+        var name = getter.getName();
+        if (name.startsWith("get") && name.length() > 3) return name.substring(3);
+        if (name.startsWith("is") && name.length() > 2) return name.substring(2);
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @NonNull
+    private static String decapitalize(@NonNull String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @NonNull
+    @SneakyThrows
+    private static ValueSetter compileSetter(@NonNull MethodHandles.Lookup lookup, @NonNull Method setter) {
+        MethodHandle handle = lookup.unreflect(setter);
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup, "apply",
+                MethodType.methodType(ValueSetter.class),
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle,
+                MethodType.methodType(void.class, setter.getDeclaringClass(),
+                        Primitives.wrap(setter.getParameterTypes()[0])));
+        return (ValueSetter) site.getTarget().invoke();
+    }
+
+    /**
+     * Writes field (it could be private) by setter handle adapted once to erased type,
+     * so each write is exact invocation (primitive values are unboxed by adapted handle)
+     */
+    @NonNull
+    @SneakyThrows
+    private static ValueSetter compileSetter(@NonNull MethodHandles.Lookup lookup, @NonNull Field field) {
+        MethodHandle handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), lookup).unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (object, value) -> writeField(handle, object, value);
+    }
+
+    @SneakyThrows
+    private static void writeField(@NonNull MethodHandle handle, Object object, Object value) {
+        handle.invokeExact(object, value);
+    }
+
+    @NonNull
+    private static Class<?> accessorType(@NonNull Member accessor) {
+        return accessor instanceof Field field ? field.getType() : ((Method) accessor).getReturnType();
+    }
+
+    @NonNull
+    @SneakyThrows
+    private static Instantiator compileInstantiator(@NonNull MethodHandles.Lookup lookup, @NonNull Class<?> clazz) {
+        MethodHandle handle;
+        try {
+            handle = lookup.findConstructor(clazz, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Class " + clazz.getName() +
+                    " could not be imported, public no-args constructor or record is required", e);
+        }
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup, "create",
+                MethodType.methodType(Instantiator.class),
+                MethodType.methodType(Object.class),
+                handle, MethodType.methodType(clazz));
+        return (Instantiator) site.getTarget().invoke();
+    }
+
+    @SneakyThrows
+    private void compileRecordConstructor(@NonNull MethodHandles.Lookup lookup, int node, @NonNull Class<?> clazz) {
+        var types = Arrays.stream(clazz.getRecordComponents())
+                .map(RecordComponent::getType)
+                .toArray(Class<?>[]::new);
+        var handle = lookup.findConstructor(clazz, MethodType.methodType(void.class, types));
+        this.recordConstructors[node] = handle.asSpreader(Object[].class, types.length);
+        this.recordDefaults[node] = Arrays.stream(types)
+                .map(type -> type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null)
+                .toArray();
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private static Supplier<Collection<Object>> collectionFactory(@NonNull MethodHandles.Lookup lookup,
+                                                                  @NonNull Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class)) return ArrayList::new;
+        if (type.isAssignableFrom(LinkedHashSet.class)) return LinkedHashSet::new;
+        if (type.isAssignableFrom(TreeSet.class)) return TreeSet::new;
+        if (type.isAssignableFrom(ArrayDeque.class)) return ArrayDeque::new;
+
+        var instantiator = compileInstantiator(lookup, type);
+        return () -> (Collection<Object>) instantiator.create();
+    }
+
+    @FunctionalInterface
+    public interface ValueSetter {
+        void apply(Object object, Object value);
+    }
+
+    @FunctionalInterface
+    public interface Instantiator {
+        Object create();
+    }
+
+    /**
+     * Groups rows of the table into records, one record is read ahead
+     */
+    private final class RecordIterator implements Iterator<T> {
+        @NonNull
+        private final Iterator<Row> rows;
+        private final int startColumn;
+        /**
+         * row number, which is expected next, table ends on the gap
+         */
+        private int nextRowNumber;
+        /**
+         * first row of the next record
+         */
+        private Row pending;
+
+        private RecordIterator(@NonNull Iterator<Row> rows, int startRow, int startColumn) {
+            this.rows = rows;
+            this.startColumn = startColumn;
+            this.nextRowNumber = startRow;
+
+            skipRowsBefore(startRow);
+            checkHeaders(startRow);
+            this.pending = nextTableRow();
+        }
+
+        private void skipRowsBefore(int startRow) {
+            while (rows.hasNext()) {
+                var row = rows.next();
+                if (rowNumber(row) >= startRow) {
+                    this.pending = row;
+                    return;
+                }
+            }
+        }
+
+        private void checkHeaders(int startRow) {
+            var headerRows = new Row[mapper.getHeaderHeight()];
+            for (int i = 0; i < headerRows.length; i++) {
+                var row = nextRow();
+                if (row == null || rowNumber(row) != startRow + i)
+                    throw new IllegalArgumentException("Header row %d is missing".formatted(startRow + i));
+                headerRows[i] = row;
+                nextRowNumber++;
+            }
+
+            for (var header : plan.getHeaderCells()) {
+                var column = startColumn + header.columnOffset();
+                var text = headerRows[header.rowOffset()].getOptionalCell(column).map(Cell::getText).orElse("");
+                if (!header.headerName().equals(text))
+                    throw new IllegalArgumentException("Header at row %d column %d is '%s', but '%s' is expected"
+                            .formatted(startRow + header.rowOffset(), column, text, header.headerName()));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public T next() {
+            if (pending == null) throw new NoSuchElementException();
+
+            var recordRows = new ArrayList<Row>();
+            recordRows.add(pending);
+            pending = null;
+            Row row;
+            while ((row = nextTableRow()) != null) {
+                if (hasAnyValue(row, anchorLeaves[FastExcelExportPlan.ROOT])) {
+                    pending = row;
+                    break;
+                }
+                recordRows.add(row);
+            }
+            return readRecord(recordRows);
+        }
+
+        private Row nextRow() {
+            if (pending != null) {
+                var row = pending;
+                pending = null;
+                return row;
+            }
+            return rows.hasNext() ? rows.next() : null;
+        }
+
+        /**
+         * @return next row of the table, null if table ends (no more rows, gap or blank row)
+         */
+        private Row nextTableRow() {
+            if (nextRowNumber < 0) return null;
+
+            var row = nextRow();
+            if (row == null || rowNumber(row) != nextRowNumber || !hasAnyValue(row, subtreeLeaves[FastExcelExportPlan.ROOT])) {
+                nextRowNumber = -1;
+                return null;
+            }
+            nextRowNumber++;
+            return row;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T readRecord(@NonNull List<Row> rows) {
+            return (T) readObject(FastExcelExportPlan.ROOT, rows, 0, rows.size());
+        }
+
+        @SneakyThrows
+        private Object readObject(int node, @NonNull List<Row> rows, int from, int to) {
+            var children = plan.getChildren()[node];
+            if (recordConstructors[node] != null) {
+                var arguments = recordDefaults[node].clone();
+                for (int child : children) {
+                    if (!imported[child]) continue;
+                    var value = readChild(child, rows, from, to);
+                    if (value != null) arguments[componentIndexes[child]] = value;
+                }
+                return recordConstructors[node].invoke(arguments);
+            }
+
+            var object = instantiators[node].create();
+            for (int child : children) {
+                if (!imported[child]) continue;
+                var value = readChild(child, rows, from, to);
+                if (value != null) setters[child].apply(object, value);
+            }
+            return object;
+        }
+
+        private Object readChild(int child, @NonNull List<Row> rows, int from, int to) {
+            if (plan.getCollectionMappings()[child]) {
+                var collection = readCollection(child, rows, from, to);
+                return arrayComponentTypes[child] == null ? collection : toArray(child, collection);
+            }
+            if (isPadding(child, rows, from, to))
+                return null;
+            return plan.isLeaf(child) ? readLeaf(child, rows.get(from)) : readObject(child, rows, from, to);
+        }
+
+        private Collection<Object> readCollection(int node, @NonNull List<Row> rows, int from, int to) {
+            var collection = collectionFactories[node].get();
+            int elementStart = from;
+            for (int row = from + 1; row <= to; row++) {
+                if (row != to && !hasAnyValue(rows.get(row), anchorLeaves[node])) continue;
+
+                if (!isPadding(node, rows, elementStart, row)) {
+                    collection.add(plan.isLeaf(node)
+                            ? readLeaf(node, rows.get(elementStart))
+                            : readObject(node, rows, elementStart, row));
+                }
+                elementStart = row;
+            }
+            return collection;
+        }
+
+        /**
+         * @return array of component type (possibly primitive) with elements of collection
+         */
+        private Object toArray(int node, @NonNull Collection<Object> collection) {
+            var array = Array.newInstance(arrayComponentTypes[node], collection.size());
+            int i = 0;
+            for (var element : collection) {
+                Array.set(array, i++, element);
+            }
+            return array;
+        }
+
+        private Object readLeaf(int leaf, @NonNull Row row) {
+            var cell = row.getOptionalCell(startColumn + plan.getLeafColumns()[leaf]).orElse(null);
+            if (cell == null || cell.getType() == CellType.EMPTY || isFallback(leaf, cell)) return null;
+            return readers[leaf].read(cell);
+        }
+
+        /**
+         * @return whether all values of node are fallbacks (it was exported as null or as padding)
+         */
+        private boolean isPadding(int node, @NonNull List<Row> rows, int from, int to) {
+            for (int row = from; row < to; row++) {
+                for (int leaf : subtreeLeaves[node]) {
+                    var cell = rows.get(row).getOptionalCell(startColumn + plan.getLeafColumns()[leaf]).orElse(null);
+                    if (cell != null && cell.getType() != CellType.EMPTY && !isFallback(leaf, cell))
+                        return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isFallback(int leaf, @NonNull Cell cell) {
+            return cell.getType() == CellType.STRING &&
+                    plan.getExportMetaInfos()[leaf].valueFallback().equals(cell.getText());
+        }
+
+        private boolean hasAnyValue(@NonNull Row row, @NonNull int[] leaves) {
+            for (int leaf : leaves) {
+                var cell = row.getOptionalCell(startColumn + plan.getLeafColumns()[leaf]);
+                if (cell.isPresent() && cell.get().getType() != CellType.EMPTY) return true;
+            }
+            return false;
+        }
+
+        private int rowNumber(@NonNull Row row) {
+            return row.getRowNum() - 1;
+        }
+    }
+}
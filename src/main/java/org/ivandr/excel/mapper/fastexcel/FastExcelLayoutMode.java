@@ -0,0 +1,19 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+/**
+ * How rows of exported object are allocated to its collections
+ */
+public enum FastExcelLayoutMode {
+    /**
+     * Each collection element takes the same number of rows as any other element on its tree height
+     * and each collection is padded to the maximal size on its tree height,
+     * so object is a strict rectangle, but one large collection makes all elements large
+     */
+    RECTANGULAR,
+    /**
+     * Each collection element takes only rows required by its own nested collections,
+     * rows left in shorter collections are filled by one merged fallback cell per column,
+     * so object takes only rows it needs
+     */
+    RAGGED
+}
@@ -1,23 +1,29 @@
 package org.ivandr.excel.mapper.fastexcel;
 
 import com.google.common.graph.Graph;
+import com.google.common.graph.Graphs;
 import com.google.common.graph.ImmutableGraph;
 import com.google.common.graph.Traverser;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.SneakyThrows;
-import org.dhatim.fastexcel.StyleSetter;
+import org.dhatim.fastexcel.Workbook;
 import org.dhatim.fastexcel.Worksheet;
-import org.ivandr.excel.annotations.ExcelCellStyle;
-import org.ivandr.excel.basics.ExcelCellCoordinates;
+import org.ivandr.excel.basics.ExcelTableExtent;
 import org.ivandr.excel.mapper.ExcelMapper;
 
-import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+/**
+ * Mapper is immutable after creation and keeps no state between calls,
+ * so one instance could be used by many threads at the same time
+ * (each of them writing its own worksheet).
+ */
 @SuppressWarnings("UnstableApiUsage")
 @Getter
 public class FastExcelMapper<T> implements ExcelMapper<Worksheet, T> {
@@ -27,20 +33,72 @@ public class FastExcelMapper<T> implements ExcelMapper<Worksheet, T> {
      * root does not have any sense, it is used as a way to convert forest to tree
      */
     @NonNull
+    @Getter(AccessLevel.PACKAGE)
     private final FastExcelMappingNode root;
     /**
      * tree representation of mapping routes
      */
     @NonNull
+    @Getter(AccessLevel.PACKAGE)
     private final ImmutableGraph<FastExcelMappingNode> treeGraph;
     /**
      * leaves are in the same order as in tree (insertion order)
      */
     @NonNull
     private final List<FastExcelMappingNode> leaves;
+    /**
+     * number of rows occupied by headers
+     */
+    private final int headerHeight;
+    /**
+     * flat representation of the tree, which is used for export
+     */
+    @NonNull
+    @Getter(AccessLevel.PACKAGE)
+    private final FastExcelExportPlan plan;
+    /**
+     * allocation of rows to collections of each exported object
+     */
+    @NonNull
+    private final FastExcelLayoutMode layoutMode;
+    /**
+     * batched loading of associations of exported objects (null - getters load them on their own)
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final FastExcelPrefetcher prefetcher;
+    /**
+     * listener of export phases, {@link FastExcelExportListener#NONE} if nothing is measured
+     */
+    @NonNull
+    private final FastExcelExportListener listener;
+
+    /**
+     * listener of completed rows, which does nothing (e.g. worksheet is never flushed)
+     */
+    static final IntConsumer NO_ROW_LISTENER = row -> {
+    };
 
     FastExcelMapper(@NonNull FastExcelMappingNode root, @NonNull Graph<FastExcelMappingNode> treeGraph) {
+        this(root, treeGraph, FastExcelValueWriters.defaults());
+    }
+
+    FastExcelMapper(@NonNull FastExcelMappingNode root, @NonNull Graph<FastExcelMappingNode> treeGraph,
+                    @NonNull FastExcelValueWriters valueWriters) {
+        this(root, treeGraph, valueWriters, FastExcelLayoutMode.RECTANGULAR);
+    }
+
+    FastExcelMapper(@NonNull FastExcelMappingNode root, @NonNull Graph<FastExcelMappingNode> treeGraph,
+                    @NonNull FastExcelValueWriters valueWriters, @NonNull FastExcelLayoutMode layoutMode) {
+        this(root, treeGraph, valueWriters, layoutMode, FastExcelExportListener.NONE);
+    }
+
+    FastExcelMapper(@NonNull FastExcelMappingNode root, @NonNull Graph<FastExcelMappingNode> treeGraph,
+                    @NonNull FastExcelValueWriters valueWriters, @NonNull FastExcelLayoutMode layoutMode,
+                    @NonNull FastExcelExportListener listener) {
         this.root = root;
+        this.layoutMode = layoutMode;
+        this.prefetcher = null;
+        this.listener = listener;
         this.treeGraph = ImmutableGraph.copyOf(treeGraph);
 
         if (!treeGraph.nodes().contains(root))
@@ -51,6 +109,26 @@ public class FastExcelMapper<T> implements ExcelMapper<Worksheet, T> {
                 .toList();
 
         fitNodesSizeToRectangle();
+        this.plan = FastExcelExportPlan.compile(this.root, this.treeGraph, valueWriters);
+        this.headerHeight = this.plan.getMaxTreeHeight();
+    }
+
+    /**
+     * @param source mapper, which is projected, prefetched or listened
+     * @param plan projected plan of source mapper (or its own plan)
+     * @param prefetch prefetch of created mapper (null - none)
+     * @param listener listener of created mapper
+     */
+    private FastExcelMapper(@NonNull FastExcelMapper<T> source, @NonNull FastExcelExportPlan plan,
+                            FastExcelPrefetch prefetch, @NonNull FastExcelExportListener listener) {
+        this.root = source.root;
+        this.layoutMode = source.layoutMode;
+        this.prefetcher = prefetch == null ? null : new FastExcelPrefetcher(plan, prefetch);
+        this.listener = listener;
+        this.treeGraph = ImmutableGraph.copyOf(Graphs.inducedSubgraph(source.treeGraph, List.of(plan.getNodes())));
+        this.leaves = Arrays.stream(plan.getLeaves()).mapToObj(leaf -> plan.getNodes()[leaf]).toList();
+        this.plan = plan;
+        this.headerHeight = plan.getMaxTreeHeight();
     }
 
 
@@ -102,267 +180,326 @@ public class FastExcelMapper<T> implements ExcelMapper<Worksheet, T> {
         }
     }
 
+    @NonNull
     @Override
-    public void mapToExcelSheet(@NonNull Worksheet worksheet, int startRow, int startColumn, T object) {
-        mapHeadersToExcelSheet(startRow, startColumn, worksheet);
-        mapValuesToExcelSheet(worksheet, startRow, startColumn, object);
+    public ExcelTableExtent mapToExcelSheet(@NonNull Worksheet worksheet, int startRow, int startColumn, T object) {
+        var event = new FastExcelExportEvent();
+        event.begin();
+        var extent = mapTableToExcelSheet(worksheet, startRow, startColumn, object, bindStyles(worksheet), newLayout(),
+                event);
+        event.commit(this.root.getClazz(), worksheet);
+        return extent;
     }
 
-    private void mapHeadersToExcelSheet(
-            int startRow, int startColumn,
-            @NonNull Worksheet worksheet) {
-        var nodesWithCoordinates = new ArrayDeque<FastExcelNodeWithCoordinates>();
-        nodesWithCoordinates.add(new FastExcelNodeWithCoordinates(
-                        this.root,
-                        new ExcelCellCoordinates(startRow, startColumn)
-                )
-        );
-
-        while (!nodesWithCoordinates.isEmpty()) {
-            var nodeWithCoordinate = nodesWithCoordinates.pop();
-            var parent = nodeWithCoordinate.node();
-            var parentCoordinates = nodeWithCoordinate.coordinates();
-
-            var children = this.treeGraph.successors(parent)
-                    .stream()
-                    .filter(ch -> ch.getExportMetaInfo().isPresent())
-                    .sorted(Comparator.comparing(ch -> ch.getExportMetaInfo().get().order()))
-                    .toList();
-
-            for (var child : children) {
-                if (child.getExportMetaInfo().isEmpty()) continue;
-
-                worksheet.value(parentCoordinates.row(), parentCoordinates.column(),
-                        child.getExportMetaInfo().get().headerName());
-
-                var styleSetter = worksheet.range(
-                        parentCoordinates.row(),
-                        parentCoordinates.column(),
-                        parentCoordinates.row() + child.getHeaderHeight() - 1,
-                        parentCoordinates.column() + child.getHeaderWidth() - 1
-                ).style();
-                styleSetter.merge();
-                applyStyleToCell(styleSetter, child.getExportMetaInfo().get().headerStyle());
-
-                nodesWithCoordinates.add(
-                        new FastExcelNodeWithCoordinates(
-                                child,
-                                ExcelCellCoordinates.sum(
-                                        parentCoordinates,
-                                        new ExcelCellCoordinates(child.getHeaderHeight(), 0)
-                                )
-                        )
-                );
-
-                parentCoordinates = ExcelCellCoordinates.sum(
-                        parentCoordinates,
-                        new ExcelCellCoordinates(0, child.getHeaderWidth())
-                );
-            }
-        }
+    /**
+     * Styles are bound and layout is created once for all tables, headers are stamped from compiled plan
+     * and associations are loaded in batches if prefetch is set
+     */
+    @NonNull
+    @Override
+    public List<ExcelTableExtent> mapAll(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                         @NonNull Iterable<? extends T> objects, int gap) {
+        if (gap < 0)
+            throw new IllegalArgumentException("Gap between tables must not be negative");
+        var event = new FastExcelExportEvent();
+        event.begin();
+        var styles = bindStyles(worksheet);
+        var layout = newLayout();
+        var extents = new ArrayList<ExcelTableExtent>();
+        forEachPrefetched(objects.iterator(), object -> {
+            int row = extents.isEmpty() ? startRow : extents.get(extents.size() - 1).nextRow() + gap;
+            extents.add(mapTableToExcelSheet(worksheet, row, startColumn, object, styles, layout, event));
+        });
+        event.commit(this.root.getClazz(), worksheet);
+        return extents;
     }
 
-    private void mapValuesToExcelSheet(
-            @NonNull Worksheet worksheet,
-            int startRow, int startColumn,
-            T value) {
-
-        // index - treeHeight,
-        // value - accumulatedMaximalCellNumber (the cell number required for specified tree height
-        // including all children of current height)
-        List<Integer> accumulatedMaximalCellNumberByTreeHeight = getAccumulatedMaximalCellNumberByHeight(value);
-
-        HashMap<FastExcelMappingNode, List<Object>> exportObjectsByLeaf = getObjectsToExport(
-                accumulatedMaximalCellNumberByTreeHeight,
-                value
-        );
-
-        int maxTreeHeight = accumulatedMaximalCellNumberByTreeHeight.size();
-        for (int i = 0; i < this.leaves.size(); i++) {
-            var leaf = this.leaves.get(i);
-            var exportMetaInfo = leaf.getExportMetaInfo()
-                    .orElseThrow(() -> new IllegalStateException("Node without meta info, could not continue"));
-
-
-            var listOfObjects = exportObjectsByLeaf.getOrDefault(this.leaves.get(i), new ArrayList<>());
-            var leafTreeHeight = leaf.getTreeHeight();
-            int sizePerObject = !leaf.isCollectionMapping() ?
-                    accumulatedMaximalCellNumberByTreeHeight.get(leafTreeHeight) :
-                    leafTreeHeight + 1 == maxTreeHeight ?
-                            1 :
-                            accumulatedMaximalCellNumberByTreeHeight.get(leafTreeHeight + 1);
-            int topRow = startRow + maxTreeHeight - 1;
-            for (var o : listOfObjects) {
-                int leftColumn = startColumn + i;
-
-                worksheet.value(topRow, leftColumn, o == null ? exportMetaInfo.valueFallback() : o.toString());
-                var styleSetter = worksheet.range(topRow, leftColumn,
-                        topRow + sizePerObject - 1, leftColumn).style();
-                applyStyleToCell(styleSetter, exportMetaInfo.valueStyle());
-                styleSetter.set();
-                styleSetter.merge().set();
-                topRow += sizePerObject;
-            }
-        }
-
+    @NonNull
+    private ExcelTableExtent mapTableToExcelSheet(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                                  T object,
+                                                  @NonNull FastExcelStyleRegistry.Styles styles,
+                                                  @NonNull FastExcelRecordLayout layout,
+                                                  @NonNull FastExcelExportEvent event) {
+        mapHeadersToExcelSheet(startRow, startColumn, worksheet, styles);
+        int rows = mapValuesToExcelSheet(worksheet, startRow + this.headerHeight, startColumn, object, styles,
+                layout, NO_ROW_LISTENER);
+        event.add(rows, layout.getCellCount());
+        return new ExcelTableExtent(startRow, startColumn, this.headerHeight + rows,
+                this.plan.getHeaderBlock().getWidth());
     }
 
-    private List<Integer> getAccumulatedMaximalCellNumberByHeight(T value) {
-        HashMap<Integer, Integer> cellNumberByHeight = new HashMap<>();
-
-        var stack = new ArrayDeque<FastExcelNodeWithValue>();
-        stack.add(new FastExcelNodeWithValue(
-                this.root,
-                value
-        ));
-
-        int maxTreeHeight = 0;
-        while (!stack.isEmpty()) {
-            var parent = stack.pop();
-            maxTreeHeight = Math.max(parent.node().getTreeHeight(), maxTreeHeight);
+    /**
+     * Projection is linear in number of nodes (nothing is reflected or compiled), but it copies the tree
+     * and compiles new export plan, so projected mapper should be kept and reused as any other mapper.
+     * Getters of pruned columns are not invoked by projected mapper
+     * @return mapper of projected columns only, it shares compiled getters with this mapper
+     * @throws IllegalArgumentException if projection does not keep any column
+     */
+    @NonNull
+    public FastExcelMapper<T> project(@NonNull FastExcelProjection projection) {
+        return new FastExcelMapper<>(this, this.plan.project(projection.getIncludes()), getPrefetch(), this.listener);
+    }
 
-            var children = this.treeGraph.successors(parent.node());
+    /**
+     * Prefetch is applied to {@link #mapEachToExcelSheet(Worksheet, int, int, Iterator)}
+     * and {@link FastExcelParallelExporter}, single objects and {@link FastExcelSheetWriter} are exported
+     * without it, because there is nothing to batch
+     * @return mapper, which calls loaders of prefetch before batches of objects are exported,
+     * it shares compiled getters with this mapper
+     */
+    @NonNull
+    public FastExcelMapper<T> withPrefetch(@NonNull FastExcelPrefetch prefetch) {
+        return new FastExcelMapper<>(this, this.plan, prefetch, this.listener);
+    }
 
-            stack.addAll(
-                    children
-                            .stream()
-                            .flatMap(n -> {
-                                Object gotValue = getValueFromNode(n, parent.value());
+    /**
+     * @return mapper, which reports its export phases to listener ({@link FastExcelExportListener#NONE} - to nobody),
+     * it shares compiled getters with this mapper
+     */
+    @NonNull
+    public FastExcelMapper<T> withListener(@NonNull FastExcelExportListener listener) {
+        return new FastExcelMapper<>(this, this.plan, getPrefetch(), listener);
+    }
 
-                                Stream<?> resStream = Stream.of(gotValue);
-                                if (n.isCollectionMapping() && gotValue instanceof Collection<?> coll) {
-                                    cellNumberByHeight.compute(n.getTreeHeight(),
-                                            (k, v) -> Math.max(1, v == null ? coll.size() : Math.max(v, coll.size())));
-                                    resStream = coll.stream();
-                                }
-                                return resStream.map(o -> new FastExcelNodeWithValue(n, o));
-                            }).toList()
-            );
-        }
+    private FastExcelPrefetch getPrefetch() {
+        return this.prefetcher == null ? null : this.prefetcher.getPrefetch();
+    }
 
-        var res = new ArrayList<Integer>(maxTreeHeight + 1);
-        for (int i = 0; i <= maxTreeHeight; i++) {
-            res.add(cellNumberByHeight.getOrDefault(i, 1));
-        }
+    /**
+     * @return whether associations are loaded before batches of objects are exported
+     */
+    boolean isPrefetching() {
+        return this.prefetcher != null;
+    }
 
-        for (int i = res.size() - 2; i >= 0; i--) {
-            res.set(i, res.get(i + 1) * res.get(i));
+    @Override
+    public void mapEachToExcelSheet(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                    @NonNull Iterator<? extends T> objects) {
+        try (var writer = openSheetWriter(worksheet, startRow, startColumn)) {
+            forEachPrefetched(objects, writer::append);
         }
+    }
 
-        return res;
-    }
-
-    private HashMap<FastExcelMappingNode, List<Object>> getObjectsToExport(
-            @NonNull List<Integer> accumulatedMaximalCellNumberByTreeHeight,
-            T value
-    ) {
-        HashMap<FastExcelMappingNode, List<Object>> exportObjectsByLeaf = new HashMap<>();
-        for (var l : this.leaves) exportObjectsByLeaf.put(l, new ArrayList<>());
-
-        var stack = new ArrayDeque<FastExcelNodeWithValue>();
-        stack.add(new FastExcelNodeWithValue(this.root, value));
-
-        while (!stack.isEmpty()) {
-            var parent = stack.pop();
-            var children = this.treeGraph.successors(parent.node());
-
-            stack.addAll(
-                    children
-                            .stream()
-                            .flatMap(n -> {
-
-                                        Object gotValue = getValueFromNode(n, parent.value());
-
-                                        Stream<?> resStream = Stream.of(gotValue);
-
-                                        if (n.isCollectionMapping() && gotValue instanceof Collection<?> coll) {
-                                            int requiredSize =
-                                                    accumulatedMaximalCellNumberByTreeHeight.get(n.getTreeHeight())
-                                                    / (n.getTreeHeight() + 1 == accumulatedMaximalCellNumberByTreeHeight.size() ?
-                                                            1 :
-                                                            accumulatedMaximalCellNumberByTreeHeight.get(n.getTreeHeight() + 1));
-                                            for (int i = coll.size(); i < requiredSize; i++) {
-                                                coll.add(null);
-                                            }
-                                            resStream = coll.stream();
-                                        }
-                                        return resStream.map(o -> new FastExcelNodeWithValue(n, o));
-                                    }
-                            ).toList()
-            );
-
-
-            if (children.isEmpty()) {
-                exportObjectsByLeaf.compute(parent.node(),
-                        (k, v) -> {
-                            if (v == null) v = new ArrayList<>();
-                            v.add(parent.value());
-                            return v;
-                        });
-            }
+    /**
+     * Passes objects to action, associations of each batch are loaded before it if prefetch is set
+     */
+    void forEachPrefetched(@NonNull Iterator<? extends T> objects, @NonNull Consumer<? super T> action) {
+        if (this.prefetcher != null) {
+            this.prefetcher.forEachPrefetched(objects, action);
+            return;
         }
-        return exportObjectsByLeaf;
+        objects.forEachRemaining(action);
     }
 
-    private Object getValueFromNode(@NonNull FastExcelMappingNode node,
-                                    Object sourceValue) {
-        if (sourceValue == null)
-            return null;
+    /**
+     * Stamps header only (names, styles and merges), header is compiled once per mapper,
+     * so it could be repeated cheaply (e.g. above each block of values written by the caller)
+     * @return cells taken by header
+     */
+    @NonNull
+    public ExcelTableExtent stampHeader(@NonNull Worksheet worksheet, int row, int column) {
+        var block = this.plan.getHeaderBlock();
+        block.stamp(worksheet, bindStyles(worksheet), row, column);
+        return new ExcelTableExtent(row, column, block.getHeight(), block.getWidth());
+    }
 
+    @NonNull
+    @Override
+    public FastExcelSheetWriter<T> openSheetWriter(@NonNull Worksheet worksheet, int startRow, int startColumn) {
+        return openSheetWriter(worksheet, startRow, startColumn, FastExcelSheetWriter.DEFAULT_FLUSH_EVERY_ROWS);
+    }
 
-        var valueStream = sourceValue instanceof Collection<?> coll ?
-                coll.stream() : Stream.of(sourceValue);
+    /**
+     * @param flushEveryRows minimal number of written rows, after which worksheet is flushed
+     * @see #openSheetWriter(Worksheet, int, int)
+     */
+    @NonNull
+    public FastExcelSheetWriter<T> openSheetWriter(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                                   int flushEveryRows) {
+        return openSheetWriter(worksheet, startRow, startColumn, flushEveryRows, FastExcelRollover.DEFAULT);
+    }
 
-        var nodeList = valueStream
-                .map(v -> v == null ? null :
-                        node.getCollectionGetter().isPresent() ?
-                                node.getCollectionGetter().get().apply(v) :
-                                node.getValueGetter()
-                                        .orElseThrow(() ->
-                                                new IllegalStateException("No getter was found in node!"))
-                                        .apply(v))
-                .collect(Collectors.toList());
+    /**
+     * @param rollover limit of rows per worksheet and naming of next worksheets of the same workbook
+     * @see #openSheetWriter(Worksheet, int, int, int)
+     */
+    @NonNull
+    public FastExcelSheetWriter<T> openSheetWriter(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                                   int flushEveryRows, @NonNull FastExcelRollover rollover) {
+        return new FastExcelSheetWriter<>(this, worksheet, startRow, startColumn, flushEveryRows, rollover);
+    }
 
-        if (sourceValue instanceof Collection<?>) {
-            return nodeList;
-        }
+    /**
+     * @return subscriber, which exports published objects to new worksheet of workbook
+     * @see #subscriber(Workbook, String, int, int)
+     */
+    @NonNull
+    public FastExcelSubscriber<T> subscriber(@NonNull Workbook workbook, @NonNull String sheetName) {
+        return subscriber(workbook, sheetName,
+                FastExcelSubscriber.DEFAULT_BATCH_SIZE, FastExcelSheetWriter.DEFAULT_FLUSH_EVERY_ROWS);
+    }
 
-        if (nodeList.isEmpty()) {
-            throw new IllegalStateException("No value was got from getters!");
-        }
+    /**
+     * @param workbook workbook created by caller on output stream, nothing else should be flushed to it
+     *                 until publisher completes
+     * @param batchSize number of objects requested from publisher at once
+     * @param flushEveryRows minimal number of written rows, after which worksheet is flushed
+     * @return subscriber, which exports published objects to new worksheet of workbook,
+     * workbook is finished when publisher completes
+     */
+    @NonNull
+    public FastExcelSubscriber<T> subscriber(@NonNull Workbook workbook, @NonNull String sheetName,
+                                             int batchSize, int flushEveryRows) {
+        return new FastExcelSubscriber<>(this, workbook, sheetName, batchSize, flushEveryRows);
+    }
 
-        return nodeList.get(0);
+    /**
+     * @return styles of mapper bound to workbook of worksheet
+     */
+    @NonNull
+    FastExcelStyleRegistry.Styles bindStyles(@NonNull Worksheet worksheet) {
+        return FastExcelStyleRegistry.forWorkbook(worksheet.getWorkbook())
+                .bind(this.plan.getStyles(), this.listener);
     }
 
+    void mapHeadersToExcelSheet(
+            int startRow, int startColumn,
+            @NonNull Worksheet worksheet,
+            @NonNull FastExcelStyleRegistry.Styles styles) {
+        this.plan.getHeaderBlock().stamp(worksheet, styles, startRow, startColumn);
+    }
 
-    private record FastExcelNodeWithValue(@NonNull FastExcelMappingNode node, @Nullable Object value) {
+    /**
+     * @param startRow first row of values (right under headers)
+     * @return number of rows taken by value
+     */
+    int mapValuesToExcelSheet(
+            @NonNull Worksheet worksheet,
+            int startRow, int startColumn,
+            T value,
+            @NonNull FastExcelStyleRegistry.Styles styles) {
+        return mapValuesToExcelSheet(worksheet, startRow, startColumn, value, styles, newLayout(), NO_ROW_LISTENER);
     }
 
-    private record FastExcelNodeWithCoordinates(@NonNull FastExcelMappingNode node,
-                                                @NonNull ExcelCellCoordinates coordinates) {
+    /**
+     * Rows are written in order, each of them is finished before the next one,
+     * so worksheet could be flushed by listener after any completed row.
+     * @param layout layout reused between objects of one worksheet
+     * @param rowCompleted listener of completed rows (absolute row number)
+     * @return number of rows taken by value
+     */
+    int mapValuesToExcelSheet(
+            @NonNull Worksheet worksheet,
+            int startRow, int startColumn,
+            T value,
+            @NonNull FastExcelStyleRegistry.Styles styles,
+            @NonNull FastExcelRecordLayout layout,
+            @NonNull IntConsumer rowCompleted) {
+        long layoutNanos = layOut(value, layout);
+        return writeLayout(worksheet, startRow, startColumn, styles, layout, layoutNanos, rowCompleted);
     }
 
+    /**
+     * Extracts values of object and places its cells, so number of its rows is known before anything is written
+     * @return nanoseconds spent (zero if nobody listens)
+     */
+    long layOut(T value, @NonNull FastExcelRecordLayout layout) {
+        // clock is read only if somebody listens
+        if (this.listener == FastExcelExportListener.NONE) {
+            layout.layOut(value);
+            return 0;
+        }
+        long started = System.nanoTime();
+        layout.layOut(value);
+        return System.nanoTime() - started;
+    }
 
-    //TODO move to another class (this function breaks single responsibility principle)
-    private void applyStyleToCell(@NonNull StyleSetter styleSetter,
-                                  @NonNull ExcelCellStyle style) {
+    /**
+     * Writes object, which is already laid out, rows are completed in order
+     * @param layoutNanos time spent by layout, which is reported to listener
+     * @return number of rows taken by object
+     * @see #mapValuesToExcelSheet(Worksheet, int, int, Object, FastExcelStyleRegistry.Styles, FastExcelRecordLayout, IntConsumer)
+     */
+    int writeLayout(
+            @NonNull Worksheet worksheet,
+            int startRow, int startColumn,
+            @NonNull FastExcelStyleRegistry.Styles styles,
+            @NonNull FastExcelRecordLayout layout,
+            long layoutNanos,
+            @NonNull IntConsumer rowCompleted) {
+        var plan = this.plan;
+        boolean measured = this.listener != FastExcelExportListener.NONE;
+        long started = measured ? System.nanoTime() : 0;
+
+        int cells = 0;
+        int mergedRegions = 0;
+        int rowCount = layout.getRowCount();
+        // flush writes out all rows created so far, so row, which could be flushed, is styled on its own
+        boolean flushable = rowCompleted != NO_ROW_LISTENER;
+        for (int rowOffset = 0; rowOffset < rowCount; rowOffset++) {
+            int row = startRow + rowOffset;
+            for (int i = layout.getRowStart(rowOffset); i < layout.getRowStart(rowOffset + 1); i++) {
+                int cell = layout.getOrderedCell(i);
+                int node = layout.getCellNode(cell);
+                int leaf = plan.getLeafColumns()[node];
+                int column = startColumn + leaf;
+                int rowSpan = layout.getCellSpan(cell);
+
+                // cell covered by merged region keeps its style (e.g. borders)
+                styles.mark(leaf, plan.getValueStyleIds()[node], row, column);
+                if (rowSpan == 0) continue;
+
+                var cellValue = layout.getCellValue(cell);
+                if (cellValue == null) {
+                    worksheet.value(row, column, plan.getExportMetaInfos()[node].valueFallback());
+                } else if (cellValue == FastExcelRecordLayout.PRIMITIVE) {
+                    plan.getPrimitiveKinds()[node].write(worksheet, row, column, layout.getCellBits(cell));
+                } else {
+                    plan.getValueWriters()[node].write(worksheet, row, column, cellValue);
+                }
+                cells++;
+                if (rowSpan > 1) {
+                    worksheet.range(row, column, row + rowSpan - 1, column).merge();
+                    mergedRegions++;
+                }
+            }
+            if (flushable) styles.applyMarked(worksheet);
+            rowCompleted.accept(row);
+        }
+        // otherwise the whole object is styled at once by blocks of neighbouring columns with the same style
+        if (!flushable) styles.applyMarked(worksheet);
+        if (measured) {
+            this.listener.objectWritten(rowCount, cells, mergedRegions, layout.getRowStart(rowCount),
+                    layoutNanos, System.nanoTime() - started);
+        }
+        return rowCount;
+    }
 
-        styleSetter = styleSetter.borderStyle(style.borderStyle())
-                .fontSize(style.fontSize())
-                .borderStyle(style.borderStyle())
-                .horizontalAlignment(style.horizontalAlignment().getHorizontalAlignmentTag())
-                .verticalAlignment(style.verticalAlignment().getVerticalAlignmentFastExcelTag())
-                .wrapText(style.isWrapText());
-        if (style.isBold())
-            styleSetter = styleSetter.bold();
-        if (style.isItalic())
-            styleSetter = styleSetter.italic();
-        if (style.isUnderlined())
-            styleSetter = styleSetter.underlined();
+    /**
+     * Flushes completed rows of worksheet, flush is reported to JFR and to listener
+     * @param rows number of rows flushed since the previous flush
+     */
+    @SneakyThrows
+    void flush(@NonNull Worksheet worksheet, int rows) {
+        var flushEvent = new FastExcelFlushEvent();
+        flushEvent.begin();
+        long started = this.listener != FastExcelExportListener.NONE ? System.nanoTime() : 0;
+        worksheet.flush();
+        if (this.listener != FastExcelExportListener.NONE) this.listener.worksheetFlushed(System.nanoTime() - started);
+        if (flushEvent.shouldCommit()) {
+            flushEvent.worksheet = worksheet.getName();
+            flushEvent.rows = rows;
+            flushEvent.commit();
+        }
+    }
 
-        if (!style.cellFormat().isBlank() && !style.cellFormat().isEmpty())
-            styleSetter = styleSetter.format(style.cellFormat());
+    @NonNull
+    FastExcelRecordLayout newLayout() {
+        return new FastExcelRecordLayout(this.plan, this.layoutMode, this.listener);
+    }
 
-        styleSetter.set();
+    @NonNull
+    FastExcelChunkBuffer newChunkBuffer() {
+        return new FastExcelChunkBuffer(this.plan, newLayout(), this.listener);
     }
 }
@@ -0,0 +1,22 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event of mapper creation by {@link FastExcelMapperFactory} (reflection or definition and plan compilation)
+ */
+@Name("org.ivandr.excel.MapperCreated")
+@Label("Excel Mapper Created")
+@Category("Excel Mapper")
+@Description("Mapping of class is reflected (or defined) and its export plan is compiled")
+final class FastExcelMapperCreatedEvent extends Event {
+    @Label("Mapped Class")
+    Class<?> mappedClass;
+
+    @Label("Nodes")
+    @Description("Number of getters in mapping tree")
+    int nodes;
+
+    @Label("Columns")
+    int columns;
+}
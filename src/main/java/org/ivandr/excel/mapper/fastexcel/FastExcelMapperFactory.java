@@ -2,7 +2,10 @@ package org.ivandr.excel.mapper.fastexcel;
 
 import com.google.common.annotations.Beta;
 import com.google.common.graph.*;
+import com.google.common.cache.CacheBuilder;
+import lombok.Builder;
 import lombok.NonNull;
+import lombok.Singular;
 import lombok.SneakyThrows;
 import lombok.experimental.SuperBuilder;
 import org.dhatim.fastexcel.Worksheet;
@@ -12,62 +15,292 @@ import org.ivandr.excel.mapper.ExcelMapper;
 import org.ivandr.excel.mapper.ExcelMapperFactory;
 
 import javax.print.DocFlavor;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Creates mappers and caches them by class, so reflection and lambda generation are done once per class.
+ * Factory and created mappers are thread safe and could be shared.
+ */
 @SuppressWarnings("UnstableApiUsage")
 public class FastExcelMapperFactory implements ExcelMapperFactory<Worksheet> {
+    /**
+     * writers of values, which are resolved for each leaf of created mappers
+     */
     @NonNull
-    @SneakyThrows
-    public <T> ExcelMapper<Worksheet, T> createExcelMapperForClass(@NonNull Class<T> clazz) {
-        var nodeFactory = new FastExcelMappingNodeFactory();
-        var root = nodeFactory.createFastExcelMappingNode(clazz);
-        var graph = createMapperGraph(nodeFactory, root);
-        return new FastExcelMapper<>(root, graph);
+    private final FastExcelValueWriters valueWriters;
+    /**
+     * readers of values, which are resolved for each leaf of created importers
+     */
+    @NonNull
+    private final FastExcelValueReaders valueReaders;
+    /**
+     * layout of objects exported by created mappers
+     */
+    @NonNull
+    private final FastExcelLayoutMode layoutMode;
+    /**
+     * listener of creation of mappers and of their export phases
+     */
+    @NonNull
+    private final FastExcelExportListener listener;
+    /**
+     * maximal tree height of reflected nodes, deeper getters are not reflected (null - unbounded)
+     */
+    private final Integer maximumDepth;
+    /**
+     * maximal number of times each type is expanded on one path of reflected tree
+     */
+    @NonNull
+    private final Map<Class<?>, Integer> maximumTypeDepths;
+    /**
+     * created mappers by their class
+     */
+    @NonNull
+    private final Map<Class<?>, FastExcelMapper<?>> mappers;
+    /**
+     * created importers by their class
+     */
+    @NonNull
+    private final Map<Class<?>, FastExcelImporter<?>> importers;
+    /**
+     * mapping definitions by their class, which are used instead of reflection
+     */
+    @NonNull
+    private final Map<Class<?>, FastExcelMappingDefinition<?>> definitions;
+
+    public FastExcelMapperFactory() {
+        this(FastExcelValueWriters.defaults());
+    }
+
+    public FastExcelMapperFactory(@NonNull FastExcelValueWriters valueWriters) {
+        this(valueWriters, null, null, null, null, null, Map.of(), null);
+    }
+
+    /**
+     * @param valueWriters writers of values, {@link FastExcelValueWriters#defaults()} if not set
+     * @param valueReaders readers of values, {@link FastExcelValueReaders#defaults()} if not set
+     * @param maximumCachedMappers bound of mappers (and importers) cache, unbounded if not set.
+     *                             Cached mapper keeps its class reachable, so bound is needed
+     *                             if classes could be unloaded (e.g. loaded by plugins)
+     * @param generatedMappings whether {@link FastExcelMappingDefinition} found by {@link ServiceLoader}
+     *                          are used instead of reflection, true if not set.
+     *                          Generated definitions are not bounded, so they are not used
+     *                          if any of depth bounds is set
+     * @param layoutMode layout of exported objects, {@link FastExcelLayoutMode#RECTANGULAR} if not set
+     * @param maximumDepth maximal tree height of reflected getters, unbounded if not set.
+     *                     Values on the maximal height are exported as they are (e.g. by toString),
+     *                     as if their getters were not recursive
+     * @param maximumTypeDepths maximal number of times type is expanded on one path (e.g. 2 for
+     *                          person, relatives of person and their relatives exported as values).
+     *                          Reflected type, which refers to itself without any of bounds, is rejected
+     * @param listener listener of mapper creation and of export phases of created mappers,
+     *                 {@link FastExcelExportListener#NONE} if not set
+     */
+    @Builder
+    private FastExcelMapperFactory(FastExcelValueWriters valueWriters, FastExcelValueReaders valueReaders,
+                                   Long maximumCachedMappers, Boolean generatedMappings,
+                                   FastExcelLayoutMode layoutMode,
+                                   Integer maximumDepth,
+                                   @Singular("maximumTypeDepth") Map<Class<?>, Integer> maximumTypeDepths,
+                                   FastExcelExportListener listener) {
+        this.listener = listener == null ? FastExcelExportListener.NONE : listener;
+        this.valueWriters = valueWriters == null ? FastExcelValueWriters.defaults() : valueWriters;
+        this.valueReaders = valueReaders == null ? FastExcelValueReaders.defaults() : valueReaders;
+        this.layoutMode = layoutMode == null ? FastExcelLayoutMode.RECTANGULAR : layoutMode;
+        this.maximumDepth = maximumDepth;
+        this.maximumTypeDepths = Map.copyOf(maximumTypeDepths);
+        // bounds are applied by reflection only, so the same configuration always gives the same tree
+        boolean bounded = maximumDepth != null || !this.maximumTypeDepths.isEmpty();
+        this.definitions = (generatedMappings == null || generatedMappings) && !bounded
+                ? loadMappingDefinitions()
+                : Map.of();
+
+        var cacheBuilder = CacheBuilder.newBuilder();
+        if (maximumCachedMappers != null) {
+            cacheBuilder.maximumSize(maximumCachedMappers);
+        }
+        this.mappers = cacheBuilder.<Class<?>, FastExcelMapper<?>>build().asMap();
+        this.importers = cacheBuilder.<Class<?>, FastExcelImporter<?>>build().asMap();
+    }
+
+    /**
+     * @return cached mapper of class, mapper is created on the first call
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <T> FastExcelMapper<T> createExcelMapperForClass(@NonNull Class<T> clazz) {
+        return (FastExcelMapper<T>) mappers.computeIfAbsent(clazz, this::buildExcelMapperForClass);
+    }
+
+    /**
+     * Importer reads tables created by mapper of the same class.
+     * Setters are found by reflected getters, so mapping is always reflected (generated definitions are not used).
+     * @return cached importer of class, importer is created on the first call
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public <T> FastExcelImporter<T> createExcelImporterForClass(@NonNull Class<T> clazz) {
+        return (FastExcelImporter<T>) importers.computeIfAbsent(clazz, this::buildExcelImporterForClass);
+    }
+
+    @NonNull
+    private <T> FastExcelImporter<T> buildExcelImporterForClass(@NonNull Class<T> clazz) {
+        var builder = new FastExcelMappingBuilder(clazz);
+        reflectMapping(builder);
+        var mapper = new FastExcelMapper<T>(builder.getRoot(), builder.build(), valueWriters);
+        return new FastExcelImporter<>(mapper, valueReaders);
     }
 
     @NonNull
-    private Graph<FastExcelMappingNode> createMapperGraph(@NonNull FastExcelMappingNodeFactory factory,
-                                                          @NonNull FastExcelMappingNode root) {
-        MutableGraph<FastExcelMappingNode> graph = GraphBuilder
-                .directed()
-                .nodeOrder(ElementOrder.sorted(Comparator.comparing(FastExcelMappingNode::getId)))
-                .build();
+    private <T> FastExcelMapper<T> buildExcelMapperForClass(@NonNull Class<T> clazz) {
+        var event = new FastExcelMapperCreatedEvent();
+        event.begin();
+        long started = listener != FastExcelExportListener.NONE ? System.nanoTime() : 0;
+        var builder = new FastExcelMappingBuilder(clazz);
+        var definition = definitions.get(clazz);
+        if (definition != null) {
+            definition.defineMapping(builder);
+        } else {
+            reflectMapping(builder);
+        }
+        var mapper = new FastExcelMapper<T>(builder.getRoot(), builder.build(), valueWriters, layoutMode, listener);
+        if (listener != FastExcelExportListener.NONE) listener.mapperCreated(clazz, System.nanoTime() - started);
+        if (event.shouldCommit()) {
+            event.mappedClass = clazz;
+            event.nodes = mapper.getPlan().size() - 1;
+            event.columns = mapper.getPlan().getLeaves().length;
+            event.commit();
+        }
+        return mapper;
+    }
 
-        var stack = new ArrayDeque<FastExcelMappingNode>();
-        stack.add(root);
+    /**
+     * Reflects annotated getters and fields depth first.
+     * Getters of each class are found and sorted once per mapping and getters are compiled once per member,
+     * so repeated sub-trees of the same class share them and build time is linear in distinct types.
+     */
+    private void reflectMapping(@NonNull FastExcelMappingBuilder builder) {
+        var gettersByClass = new HashMap<Class<?>, List<AccessibleObject>>();
+        var stack = new ArrayDeque<ReflectedNode>();
+        stack.add(new ReflectedNode(FastExcelMappingBuilder.ROOT, 0,
+                new ReflectedPath(builder.getRoot().getClazz(), null)));
 
         while (!stack.isEmpty()) {
-            var parent = stack.pop();
+            var reflected = stack.pop();
+            var parent = builder.getNode(reflected.handle());
             if (parent.getExportMetaInfo().isPresent() &&
                     !parent.getExportMetaInfo().get().isRecursive()) {
                 continue;
             }
+            if (!isExpanded(reflected)) continue;
 
-            var getters = getExportGettersFromClass(parent.getClazz());
-            getters.sort(Comparator.comparing(g -> g.getAnnotation(ExcelExportObject.class).order()));
+            var getters = gettersByClass.computeIfAbsent(parent.getClazz(), clazz -> {
+                var classGetters = getExportGettersFromClass(clazz);
+                classGetters.sort(Comparator.comparing(g -> g.getAnnotation(ExcelExportObject.class).order()));
+                return classGetters;
+            });
 
             for (var g : getters) {
-                var child = factory.createFastExcelMappingNode(g);
-                graph.putEdge(parent, child);
-                stack.add(child);
+                var child = g instanceof Field field ?
+                        builder.getNodeFactory().createFastExcelMappingNode(field) :
+                        builder.getNodeFactory().createFastExcelMappingNode((Method) g);
+                stack.add(new ReflectedNode(builder.add(reflected.handle(), child), reflected.depth() + 1,
+                        new ReflectedPath(child.getClazz(), reflected.path())));
             }
         }
+    }
+
+    /**
+     * @return whether getters of node are reflected according to depth bounds
+     * @throws IllegalStateException if type refers to itself and there are no bounds
+     */
+    private boolean isExpanded(@NonNull ReflectedNode node) {
+        if (maximumDepth != null && node.depth() >= maximumDepth) return false;
+
+        var clazz = node.path().clazz();
+        int occurrences = node.path().count(clazz);
+        var maximumTypeDepth = maximumTypeDepths.get(clazz);
+        if (maximumTypeDepth != null) return occurrences <= maximumTypeDepth;
 
-        return graph;
+        if (occurrences > 1 && maximumDepth == null)
+            throw new IllegalStateException("Cyclic mapping of " + clazz.getName() + " (" + node.path() +
+                    "), getter must not be recursive (isRecursive = false) or depth must be bounded " +
+                    "by FastExcelMapperFactory.builder().maximumDepth(...) or maximumTypeDepth(...)");
+        return true;
     }
 
+    private record ReflectedNode(int handle, int depth, @NonNull ReflectedPath path) {
+    }
+
+    /**
+     * Classes from reflected node up to the root
+     */
+    private record ReflectedPath(@NonNull Class<?> clazz, ReflectedPath parent) {
+        int count(@NonNull Class<?> type) {
+            int count = 0;
+            for (var path = this; path != null; path = path.parent()) {
+                if (path.clazz() == type) count++;
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            var names = new ArrayList<String>();
+            for (var path = this; path != null; path = path.parent()) {
+                names.add(path.clazz().getSimpleName());
+            }
+            Collections.reverse(names);
+            return String.join(" -> ", names);
+        }
+    }
+
+    /**
+     * @return definitions registered by {@link ServiceLoader}, the first one wins if class is defined twice
+     */
+    @NonNull
+    @SuppressWarnings("rawtypes")
+    private static Map<Class<?>, FastExcelMappingDefinition<?>> loadMappingDefinitions() {
+        var definitions = new HashMap<Class<?>, FastExcelMappingDefinition<?>>();
+        for (FastExcelMappingDefinition definition : ServiceLoader.load(FastExcelMappingDefinition.class)) {
+            definitions.putIfAbsent(definition.getMappedClass(), definition);
+        }
+        return Map.copyOf(definitions);
+    }
 
     @NonNull
-    private List<Method> getExportGettersFromClass(Class<?> obejctClass) {
-        return Arrays.stream(
+    private List<AccessibleObject> getExportGettersFromClass(Class<?> obejctClass) {
+        List<AccessibleObject> getters = Arrays.stream(
                         obejctClass.getMethods()
                 )
                 .filter(m -> Objects.nonNull(m) &&
                         m.getAnnotationsByType(ExcelExportObject.class).length != 0 &&
                         isMethodGetter(m))
                 .collect(Collectors.toList());
+        getters.addAll(getExportFieldsFromClass(obejctClass));
+        return getters;
+    }
+
+    /**
+     * @return annotated instance fields of class and its superclasses,
+     * fields of records are skipped, because their annotations are propagated to accessors
+     */
+    @NonNull
+    private List<Field> getExportFieldsFromClass(Class<?> objectClass) {
+        var fields = new ArrayList<Field>();
+        if (objectClass.isRecord()) return fields;
+        for (var clazz = objectClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (var field : clazz.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ExcelExportObject.class) && !Modifier.isStatic(field.getModifiers()))
+                    fields.add(field);
+            }
+        }
+        return fields;
     }
 
     private boolean isMethodGetter(@NonNull Method m) {
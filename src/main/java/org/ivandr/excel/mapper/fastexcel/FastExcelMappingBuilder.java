@@ -0,0 +1,182 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import com.google.common.graph.ElementOrder;
+import com.google.common.graph.Graph;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import org.ivandr.excel.basics.ExcelExportInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builds mapping tree of one class. Nodes are referenced by handles,
+ * which are returned on node creation, root has handle {@link #ROOT}.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public final class FastExcelMappingBuilder {
+    public static final int ROOT = 0;
+
+    @NonNull
+    @Getter(AccessLevel.PACKAGE)
+    private final FastExcelMappingNodeFactory nodeFactory;
+    @NonNull
+    private final MutableGraph<FastExcelMappingNode> graph;
+    @NonNull
+    private final List<FastExcelMappingNode> nodes = new ArrayList<>();
+
+    FastExcelMappingBuilder(@NonNull Class<?> clazz) {
+        this.nodeFactory = new FastExcelMappingNodeFactory();
+        this.graph = GraphBuilder
+                .directed()
+                .nodeOrder(ElementOrder.sorted(Comparator.comparing(FastExcelMappingNode::getId)))
+                .build();
+
+        var root = nodeFactory.createFastExcelMappingNode(clazz);
+        graph.addNode(root);
+        nodes.add(root);
+    }
+
+    /**
+     * Adds node, which exports value returned by getter
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param type returned type
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int value(int parent,
+                     @NonNull ExcelExportInfo exportInfo,
+                     @NonNull Class<?> type,
+                     @NonNull Function<Object, ?> getter) {
+        return add(parent, nodeFactory.createValueMappingNode(exportInfo, getter::apply, type));
+    }
+
+    /**
+     * Adds node, which exports value of int getter without boxing
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param type returned type (int, short or byte)
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int intValue(int parent,
+                        @NonNull ExcelExportInfo exportInfo,
+                        @NonNull Class<?> type,
+                        @NonNull ToIntFunction<Object> getter) {
+        FastExcelMappingNode.ValueGetter boxed;
+        if (type == int.class) boxed = getter::applyAsInt;
+        else if (type == short.class) boxed = object -> (short) getter.applyAsInt(object);
+        else if (type == byte.class) boxed = object -> (byte) getter.applyAsInt(object);
+        else throw new IllegalArgumentException("Type " + type.getName() + " is not read as int");
+        FastExcelMappingNode.IntGetter primitive = getter::applyAsInt;
+        return add(parent, nodeFactory.createValueMappingNode(exportInfo, boxed, primitive, type));
+    }
+
+    /**
+     * Adds node, which exports value of long getter without boxing
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int longValue(int parent,
+                         @NonNull ExcelExportInfo exportInfo,
+                         @NonNull ToLongFunction<Object> getter) {
+        FastExcelMappingNode.LongGetter primitive = getter::applyAsLong;
+        return add(parent, nodeFactory.createValueMappingNode(exportInfo, getter::applyAsLong, primitive, long.class));
+    }
+
+    /**
+     * Adds node, which exports value of double getter without boxing
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int doubleValue(int parent,
+                           @NonNull ExcelExportInfo exportInfo,
+                           @NonNull ToDoubleFunction<Object> getter) {
+        FastExcelMappingNode.DoubleGetter primitive = getter::applyAsDouble;
+        return add(parent, nodeFactory.createValueMappingNode(exportInfo, getter::applyAsDouble, primitive, double.class));
+    }
+
+    /**
+     * Adds node, which exports value of boolean getter without boxing
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int booleanValue(int parent,
+                            @NonNull ExcelExportInfo exportInfo,
+                            @NonNull Predicate<Object> getter) {
+        FastExcelMappingNode.BooleanGetter primitive = getter::test;
+        return add(parent, nodeFactory.createValueMappingNode(exportInfo, getter::test, primitive, boolean.class));
+    }
+
+    /**
+     * Adds node, which exports each element of collection (or any iterable) returned by getter in its own rows
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param elementType type of collection elements
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    @SuppressWarnings("unchecked")
+    public int collection(int parent,
+                          @NonNull ExcelExportInfo exportInfo,
+                          @NonNull Class<?> elementType,
+                          @NonNull Function<Object, ? extends Iterable<?>> getter) {
+        return add(parent, nodeFactory.createCollectionMappingNode(exportInfo,
+                object -> (Iterable<Object>) getter.apply(object), elementType));
+    }
+
+    /**
+     * Adds node, which exports each element of array (including primitive arrays) returned by getter in its own rows
+     * @param parent handle of parent node
+     * @param exportInfo export configuration of getter
+     * @param componentType type of array elements
+     * @param getter getter, which is applied to value of parent node
+     * @return handle of created node
+     */
+    public int array(int parent,
+                     @NonNull ExcelExportInfo exportInfo,
+                     @NonNull Class<?> componentType,
+                     @NonNull Function<Object, ?> getter) {
+        return add(parent, nodeFactory.createCollectionMappingNode(exportInfo,
+                FastExcelMappingNodeFactory.arrayGetter(getter::apply), componentType));
+    }
+
+    int add(int parent, @NonNull FastExcelMappingNode child) {
+        graph.putEdge(getNode(parent), child);
+        nodes.add(child);
+        return nodes.size() - 1;
+    }
+
+    @NonNull
+    FastExcelMappingNode getNode(int handle) {
+        if (handle < 0 || handle >= nodes.size())
+            throw new IllegalArgumentException("Unknown node " + handle);
+        return nodes.get(handle);
+    }
+
+    @NonNull
+    FastExcelMappingNode getRoot() {
+        return nodes.get(ROOT);
+    }
+
+    @NonNull
+    Graph<FastExcelMappingNode> build() {
+        return graph;
+    }
+}
@@ -0,0 +1,24 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+/**
+ * Mapping tree of one class, which is defined by plain code instead of reflection
+ * (e.g. generated by annotation processor at build time).
+ * Definitions are found by {@link java.util.ServiceLoader} and are preferred by {@link FastExcelMapperFactory}
+ * over reflection of {@link org.ivandr.excel.annotations.ExcelExportObject} annotations.
+ * @param <T> mapped class
+ */
+public interface FastExcelMappingDefinition<T> {
+    /**
+     * @return class, which mapping is defined
+     */
+    @NonNull
+    Class<T> getMappedClass();
+
+    /**
+     * Adds nodes of the mapping tree, in the same way as annotated getters would be reflected
+     * @param builder builder of the tree, which already contains root
+     */
+    void defineMapping(@NonNull FastExcelMappingBuilder builder);
+}
@@ -2,11 +2,10 @@ package org.ivandr.excel.mapper.fastexcel;
 
 import com.google.common.reflect.TypeToken;
 import lombok.*;
-import org.ivandr.excel.annotations.ExcelExportObject;
+import org.ivandr.excel.basics.ExcelExportInfo;
 
 import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Method;
-import java.util.Collection;
+import java.lang.reflect.Member;
 import java.util.Optional;
 
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
@@ -17,9 +16,8 @@ class FastExcelMappingNode {
     @EqualsAndHashCode.Include
     private final int id;
 
-    //TODO map interface to normal class
     @ToString.Exclude
-    private final Optional<ExcelExportObject> exportMetaInfo;
+    private final Optional<ExcelExportInfo> exportMetaInfo;
 
     @Setter
     private int headerWidth, headerHeight;
@@ -32,41 +30,64 @@ class FastExcelMappingNode {
     private final Optional<CollectionGetter> collectionGetter;
     @NonNull
     private final Class<?> clazz;
+    /**
+     * reflected getter method or field, empty for root and for nodes defined without reflection
+     */
+    @ToString.Exclude
+    private final Optional<Member> accessor;
+    /**
+     * unboxed getter of primitive value, it is set together with value getter
+     */
+    @ToString.Exclude
+    private final Optional<PrimitiveGetter> primitiveGetter;
 
     public FastExcelMappingNode(int id,
-                                ExcelExportObject excelExportObject,
+                                ExcelExportInfo exportMetaInfo,
                                 CollectionGetter collectionGetter,
                                 ValueGetter valueGetter,
                                 @NonNull
-                                Class<?> clazz) {
+                                Class<?> clazz,
+                                Member accessor,
+                                PrimitiveGetter primitiveGetter) {
         this.id = id;
-        this.exportMetaInfo = Optional.ofNullable(excelExportObject);
+        this.primitiveGetter = Optional.ofNullable(primitiveGetter);
+        this.exportMetaInfo = Optional.ofNullable(exportMetaInfo);
         this.collectionGetter = Optional.ofNullable(collectionGetter);
         this.valueGetter = Optional.ofNullable(valueGetter);
         this.clazz = clazz;
+        this.accessor = Optional.ofNullable(accessor);
         initHeaderSizes();
     }
 
+    public FastExcelMappingNode(int id,
+                                ExcelExportInfo exportMetaInfo,
+                                CollectionGetter collectionGetter,
+                                ValueGetter valueGetter,
+                                @NonNull
+                                Class<?> clazz) {
+        this(id, exportMetaInfo, collectionGetter, valueGetter, clazz, null, null);
+    }
+
     public <T> FastExcelMappingNode(int id,
-                                    @NonNull ExcelExportObject excelExportObject,
+                                    @NonNull ExcelExportInfo exportMetaInfo,
                                     @NonNull CollectionGetter collectionGetter,
                                     @NonNull Class<?> clazz) {
-        this(id, excelExportObject, collectionGetter,
+        this(id, exportMetaInfo, collectionGetter,
                 null, clazz);
     }
 
     public FastExcelMappingNode(int id,
-                                @NonNull ExcelExportObject excelExportObject,
+                                @NonNull ExcelExportInfo exportMetaInfo,
                                 @NonNull ValueGetter valueGetter,
                                 @NonNull Class<?> clazz) {
-        this(id, excelExportObject, null,
+        this(id, exportMetaInfo, null,
                 valueGetter, clazz);
     }
 
     public FastExcelMappingNode(int id,
-                                @NonNull ExcelExportObject excelExportObject,
+                                @NonNull ExcelExportInfo exportMetaInfo,
                                 @NonNull Class<?> clazz) {
-        this(id, excelExportObject, null,
+        this(id, exportMetaInfo, null,
                 null, clazz);
     }
 
@@ -92,6 +113,32 @@ class FastExcelMappingNode {
 
     @FunctionalInterface
     public interface CollectionGetter {
-        Collection<Object> apply(Object object);
+        Iterable<Object> apply(Object object);
+    }
+
+    /**
+     * Getter, which returns primitive without boxing
+     */
+    public sealed interface PrimitiveGetter permits IntGetter, LongGetter, DoubleGetter, BooleanGetter {
+    }
+
+    @FunctionalInterface
+    public non-sealed interface IntGetter extends PrimitiveGetter {
+        int applyAsInt(Object object);
+    }
+
+    @FunctionalInterface
+    public non-sealed interface LongGetter extends PrimitiveGetter {
+        long applyAsLong(Object object);
+    }
+
+    @FunctionalInterface
+    public non-sealed interface DoubleGetter extends PrimitiveGetter {
+        double applyAsDouble(Object object);
+    }
+
+    @FunctionalInterface
+    public non-sealed interface BooleanGetter extends PrimitiveGetter {
+        boolean applyAsBoolean(Object object);
     }
 }
@@ -1,46 +1,90 @@
 package org.ivandr.excel.mapper.fastexcel;
 
+import com.google.common.reflect.TypeToken;
 import lombok.NonNull;
 import lombok.SneakyThrows;
 import org.ivandr.excel.annotations.ExcelExportObject;
+import org.ivandr.excel.basics.ExcelExportInfo;
 
 import java.lang.invoke.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 class FastExcelMappingNodeFactory {
     @NonNull
     private final MethodHandles.Lookup lookup;
 
+    /**
+     * compiled getters by their methods and fields
+     */
+    @NonNull
+    private final Map<Member, CompiledGetter> compiledGetters;
+
     private int id;
 
     public FastExcelMappingNodeFactory() {
         lookup = MethodHandles.lookup();
+        compiledGetters = new HashMap<>();
         id = 0;
     }
 
+    /**
+     * Creates node of getter, getter is compiled only once per method,
+     * so nodes of the same getter (e.g. repeated sub-trees of recursive types) share it
+     * @param method - method to be reflected and compiled
+     * @return compiled node for mapping
+     */
+    @NonNull
+    public FastExcelMappingNode createFastExcelMappingNode(@NonNull Method method) {
+        var compiled = compiledGetters.computeIfAbsent(method, member -> compileGetter((Method) member));
+        var metaInfo = ExcelExportInfo.of(method.getAnnotation(ExcelExportObject.class));
+        return new FastExcelMappingNode(id++,
+                metaInfo,
+                compiled.collectionGetter(),
+                compiled.valueGetter(),
+                compiled.clazz(),
+                method,
+                compiled.primitiveGetter());
+    }
+
+    /**
+     * Creates node of field, field is read through getter handle created only once per field
+     * @param field - field to be reflected, it could be private
+     * @return compiled node for mapping
+     */
+    @NonNull
+    public FastExcelMappingNode createFastExcelMappingNode(@NonNull Field field) {
+        var compiled = compiledGetters.computeIfAbsent(field, member -> compileGetter((Field) member));
+        var metaInfo = ExcelExportInfo.of(field.getAnnotation(ExcelExportObject.class));
+        return new FastExcelMappingNode(id++,
+                metaInfo,
+                compiled.collectionGetter(),
+                compiled.valueGetter(),
+                compiled.clazz(),
+                field,
+                compiled.primitiveGetter());
+    }
+
     /**
      * Reflect and creates lambda function from method
      * Further information and inspiration could be found on
      * <a href='https://norswap.com/fast-java-reflection/'>blog</a> and
      * <a href='https://gist.github.com/norswap/09846a75092f49a7f1cbf1f00f85e9b6'>gist git</a>
      * @param method - method to be reflected and compiled
-     * @return compiled node for mapping
+     * @return compiled getter with type of exported values
      */
     @SneakyThrows
     @NonNull
-    public FastExcelMappingNode createFastExcelMappingNode(@NonNull Method method) {
+    private CompiledGetter compileGetter(@NonNull Method method) {
         // creates c style call from this.getter -> f(this) (low level implementation)
         MethodHandle handle = lookup.unreflect(method);
-        // get info from cell
-        var metaInfo = method.getAnnotation(ExcelExportObject.class);
 
-        if (Collection.class.isAssignableFrom(method.getReturnType())) {
-            // create
-            ParameterizedType ret = ((ParameterizedType) method.getGenericReturnType());
-            Type param = ret.getActualTypeArguments()[0];
+        if (Iterable.class.isAssignableFrom(method.getReturnType())) {
+            Class<?> param = elementType(method.getGenericReturnType());
             // creates the lambda function from
             // 1 - bytecode implementation
             // 2 - name of function from interface
@@ -51,12 +95,11 @@ class FastExcelMappingNodeFactory {
             CallSite site = LambdaMetafactory.metafactory(
                     lookup, "apply",
                     MethodType.methodType(FastExcelMappingNode.CollectionGetter.class),
-                    MethodType.methodType(Collection.class, Object.class),
+                    MethodType.methodType(Iterable.class, Object.class),
                     handle, handle.type());
-            return new FastExcelMappingNode(id++,
-                    metaInfo,
+            return new CompiledGetter(null,
                     (FastExcelMappingNode.CollectionGetter) site.getTarget().invoke(),
-                    (Class<?>) param);
+                    param, null);
         }
 
         CallSite site = LambdaMetafactory.metafactory(
@@ -64,10 +107,162 @@ class FastExcelMappingNodeFactory {
                 MethodType.methodType(FastExcelMappingNode.ValueGetter.class),
                 MethodType.methodType(Object.class, Object.class),
                 handle, handle.type());
-        return new FastExcelMappingNode(id++,
-                metaInfo,
-                (FastExcelMappingNode.ValueGetter) site.getTarget().invoke(),
-                method.getReturnType());
+        var getter = (FastExcelMappingNode.ValueGetter) site.getTarget().invoke();
+
+        if (method.getReturnType().isArray()) {
+            // arrays (including primitive ones) are exported through list view, without copying
+            return new CompiledGetter(null, arrayGetter(getter), method.getReturnType().getComponentType(), null);
+        }
+
+        // primitives are also read by specialized getter, so they are not boxed on export
+        var kind = FastExcelPrimitiveKind.forType(method.getReturnType());
+        FastExcelMappingNode.PrimitiveGetter primitiveGetter = null;
+        if (kind != null) {
+            CallSite primitiveSite = LambdaMetafactory.metafactory(
+                    lookup, kind.methodName(),
+                    MethodType.methodType(kind.getterInterface()),
+                    MethodType.methodType(kind.getType(), Object.class),
+                    handle, handle.type().changeReturnType(kind.getType()));
+            primitiveGetter = (FastExcelMappingNode.PrimitiveGetter) primitiveSite.getTarget().invoke();
+        }
+        return new CompiledGetter(getter, null, method.getReturnType(), primitiveGetter);
+    }
+
+    /**
+     * Reads field by getter handle adapted once to erased type (lambda could not be generated from field handle),
+     * so each read is exact invocation without any conversion of arguments
+     * @param field - field to be reflected
+     * @return getter with type of exported values
+     */
+    @SneakyThrows
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private CompiledGetter compileGetter(@NonNull Field field) {
+        // private lookup allows reading of private fields (class path or opened module is required)
+        MethodHandle handle = MethodHandles.privateLookupIn(field.getDeclaringClass(), lookup).unreflectGetter(field);
+        var type = field.getType();
+
+        MethodHandle objectHandle = handle.asType(MethodType.methodType(Object.class, Object.class));
+        if (Iterable.class.isAssignableFrom(type)) {
+            FastExcelMappingNode.CollectionGetter getter = object -> (Iterable<Object>) readObject(objectHandle, object);
+            return new CompiledGetter(null, getter, elementType(field.getGenericType()), null);
+        }
+
+        FastExcelMappingNode.ValueGetter getter = object -> readObject(objectHandle, object);
+        if (type.isArray()) {
+            return new CompiledGetter(null, arrayGetter(getter), type.getComponentType(), null);
+        }
+
+        var kind = FastExcelPrimitiveKind.forType(type);
+        if (kind == null) return new CompiledGetter(getter, null, type, null);
+
+        MethodHandle primitiveHandle = handle.asType(MethodType.methodType(kind.getType(), Object.class));
+        FastExcelMappingNode.PrimitiveGetter primitiveGetter = switch (kind) {
+            case INT -> (FastExcelMappingNode.IntGetter) object -> readInt(primitiveHandle, object);
+            case LONG -> (FastExcelMappingNode.LongGetter) object -> readLong(primitiveHandle, object);
+            case DOUBLE -> (FastExcelMappingNode.DoubleGetter) object -> readDouble(primitiveHandle, object);
+            case BOOLEAN -> (FastExcelMappingNode.BooleanGetter) object -> readBoolean(primitiveHandle, object);
+        };
+        return new CompiledGetter(getter, null, type, primitiveGetter);
+    }
+
+    @SneakyThrows
+    private static Object readObject(@NonNull MethodHandle handle, Object object) {
+        return (Object) handle.invokeExact(object);
+    }
+
+    @SneakyThrows
+    private static int readInt(@NonNull MethodHandle handle, Object object) {
+        return (int) handle.invokeExact(object);
+    }
+
+    @SneakyThrows
+    private static long readLong(@NonNull MethodHandle handle, Object object) {
+        return (long) handle.invokeExact(object);
+    }
+
+    @SneakyThrows
+    private static double readDouble(@NonNull MethodHandle handle, Object object) {
+        return (double) handle.invokeExact(object);
+    }
+
+    @SneakyThrows
+    private static boolean readBoolean(@NonNull MethodHandle handle, Object object) {
+        return (boolean) handle.invokeExact(object);
+    }
+
+    /**
+     * @param iterableType generic type of iterable
+     * @return type of elements, e.g. Person for List&lt;Person&gt;
+     */
+    @NonNull
+    private static Class<?> elementType(@NonNull Type iterableType) {
+        return TypeToken.of(iterableType)
+                .resolveType(Iterable.class.getTypeParameters()[0])
+                .getRawType();
+    }
+
+    /**
+     * getter compiled from method or field, only one of value and collection getters is set,
+     * primitive getter is set together with value getter of primitive
+     */
+    private record CompiledGetter(FastExcelMappingNode.ValueGetter valueGetter,
+                                  FastExcelMappingNode.CollectionGetter collectionGetter,
+                                  @NonNull Class<?> clazz,
+                                  FastExcelMappingNode.PrimitiveGetter primitiveGetter) {
+    }
+
+    /**
+     * @param exportMetaInfo export configuration of getter
+     * @param getter already compiled getter
+     * @param clazz returned type
+     * @return node for value mapping
+     */
+    @NonNull
+    public FastExcelMappingNode createValueMappingNode(@NonNull ExcelExportInfo exportMetaInfo,
+                                                       @NonNull FastExcelMappingNode.ValueGetter getter,
+                                                       @NonNull Class<?> clazz) {
+        return new FastExcelMappingNode(id++, exportMetaInfo, getter, clazz);
+    }
+
+    /**
+     * @param exportMetaInfo export configuration of getter
+     * @param getter already compiled getter of boxed value
+     * @param primitiveGetter already compiled getter of unboxed value
+     * @param clazz returned primitive type
+     * @return node for value mapping
+     */
+    @NonNull
+    public FastExcelMappingNode createValueMappingNode(@NonNull ExcelExportInfo exportMetaInfo,
+                                                       @NonNull FastExcelMappingNode.ValueGetter getter,
+                                                       @NonNull FastExcelMappingNode.PrimitiveGetter primitiveGetter,
+                                                       @NonNull Class<?> clazz) {
+        return new FastExcelMappingNode(id++, exportMetaInfo, null, getter, clazz, null, primitiveGetter);
+    }
+
+    /**
+     * @param exportMetaInfo export configuration of getter
+     * @param getter already compiled getter
+     * @param elementClazz type of collection elements
+     * @return node for collection mapping
+     */
+    @NonNull
+    public FastExcelMappingNode createCollectionMappingNode(@NonNull ExcelExportInfo exportMetaInfo,
+                                                            @NonNull FastExcelMappingNode.CollectionGetter getter,
+                                                            @NonNull Class<?> elementClazz) {
+        return new FastExcelMappingNode(id++, exportMetaInfo, getter, elementClazz);
+    }
+
+    /**
+     * @param getter getter, which returns array
+     * @return getter of list view of array
+     */
+    @NonNull
+    static FastExcelMappingNode.CollectionGetter arrayGetter(@NonNull FastExcelMappingNode.ValueGetter getter) {
+        return object -> {
+            var array = getter.apply(object);
+            return array == null ? null : FastExcelArrays.asList(array);
+        };
     }
 
     /**
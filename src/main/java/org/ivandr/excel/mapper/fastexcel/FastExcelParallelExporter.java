@@ -0,0 +1,188 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.excel.basics.ExcelTableExtent;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Exports partitions of objects in parallel, each partition to its own worksheet of one workbook
+ * (or chunks of one table, which are laid out in parallel and written by calling thread).
+ * Worksheets are created by calling thread in partition order, after that each of them is filled
+ * by its own task of executor. Methods return when all tasks are done,
+ * so workbook could be finished right after that.
+ * Worksheets are not flushed by tasks, because workbook is one zip stream, which could be written
+ * only by one worksheet at the time, so cells are kept in memory until {@link Workbook#finish()}.
+ */
+public class FastExcelParallelExporter<T> {
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+    @NonNull
+    private final Executor executor;
+
+    /**
+     * @param mapper mapper, which is shared by all tasks
+     * @param executor executor of tasks (e.g. fixed thread pool or virtual threads)
+     */
+    public FastExcelParallelExporter(@NonNull FastExcelMapper<T> mapper, @NonNull Executor executor) {
+        this.mapper = mapper;
+        this.executor = executor;
+    }
+
+    /**
+     * @param workbook workbook, to which worksheets are added
+     * @param partitions objects of each worksheet by name of worksheet
+     * @throws IllegalArgumentException if objects of partition do not fit into rows of worksheet
+     */
+    public void mapPartitionsToWorkbook(@NonNull Workbook workbook,
+                                        @NonNull Map<String, ? extends Iterable<? extends T>> partitions) {
+        var tasks = new ArrayList<CompletableFuture<Void>>(partitions.size());
+        for (var partition : partitions.entrySet()) {
+            var worksheet = workbook.newWorksheet(partition.getKey());
+            var objects = partition.getValue();
+            tasks.add(CompletableFuture.runAsync(() -> mapPartitionToExcelSheet(worksheet, objects), executor));
+        }
+        join(tasks);
+    }
+
+    /**
+     * Groups objects by worksheet name, groups are in order of their first object
+     * @param sheetName name of worksheet of object (e.g. region of object)
+     */
+    public void mapGroupsToWorkbook(@NonNull Workbook workbook,
+                                    @NonNull Iterable<? extends T> objects,
+                                    @NonNull Function<? super T, String> sheetName) {
+        var groups = new LinkedHashMap<String, List<T>>();
+        for (T object : objects) {
+            groups.computeIfAbsent(sheetName.apply(object), name -> new ArrayList<>()).add(object);
+        }
+        mapPartitionsToWorkbook(workbook, groups);
+    }
+
+    /**
+     * Splits objects into chunks of the same size (the last one could be smaller)
+     * @param objectsPerSheet maximal number of objects in one worksheet
+     * @param sheetName name of worksheet by index of chunk
+     * @throws IllegalArgumentException if objects of chunk take more rows than fit into worksheet
+     * (objects with collections take more than one row each)
+     */
+    public void mapChunksToWorkbook(@NonNull Workbook workbook,
+                                    @NonNull List<? extends T> objects,
+                                    int objectsPerSheet,
+                                    @NonNull IntFunction<String> sheetName) {
+        if (objectsPerSheet < 1)
+            throw new IllegalArgumentException("Number of objects per sheet must be positive");
+
+        var chunks = new LinkedHashMap<String, List<? extends T>>();
+        for (int from = 0, chunk = 0; from < objects.size(); from += objectsPerSheet, chunk++) {
+            chunks.put(sheetName.apply(chunk), objects.subList(from, Math.min(objects.size(), from + objectsPerSheet)));
+        }
+        mapPartitionsToWorkbook(workbook, chunks);
+    }
+
+    /**
+     * Exports objects as one table of one worksheet, chunks of objects are laid out by tasks of executor
+     * (so getters are invoked in parallel), then calling thread writes them in order and flushes worksheet
+     * after each chunk. At most {@code chunksInFlight} chunks are kept in memory and their buffers are reused,
+     * so memory is bounded by chunk size regardless of number of objects.
+     * Nothing else should be flushed to workbook until method returns.
+     * @param objectsPerChunk number of objects laid out by one task
+     * @param chunksInFlight maximal number of chunks laid out or waiting for writing
+     * @return cells taken by table
+     * @throws IllegalArgumentException if table does not fit into worksheet
+     * (see {@link FastExcelSheetWriter} for rollover to next worksheets)
+     */
+    @NonNull
+    @SneakyThrows
+    public ExcelTableExtent mapChunksToWorksheet(@NonNull Worksheet worksheet, int startRow, int startColumn,
+                                                 @NonNull List<? extends T> objects,
+                                                 int objectsPerChunk, int chunksInFlight) {
+        if (objectsPerChunk < 1 || chunksInFlight < 1)
+            throw new IllegalArgumentException("Chunk size and number of chunks in flight must be positive");
+
+        var event = new FastExcelExportEvent();
+        event.begin();
+        var styles = mapper.bindStyles(worksheet);
+        mapper.mapHeadersToExcelSheet(startRow, startColumn, worksheet, styles);
+        int row = startRow + mapper.getHeaderHeight();
+
+        var freeBuffers = new ArrayDeque<FastExcelChunkBuffer>(chunksInFlight);
+        var pending = new ArrayDeque<CompletableFuture<FastExcelChunkBuffer>>(chunksInFlight);
+        int from = 0;
+        while (from < objects.size() || !pending.isEmpty()) {
+            if (from < objects.size() && pending.size() < chunksInFlight) {
+                var buffer = freeBuffers.isEmpty() ? mapper.newChunkBuffer() : freeBuffers.poll();
+                var chunk = objects.subList(from, Math.min(objects.size(), from + objectsPerChunk));
+                pending.add(CompletableFuture.supplyAsync(() -> {
+                    mapper.forEachPrefetched(chunk.iterator(), buffer::add);
+                    return buffer;
+                }, executor));
+                from += chunk.size();
+                continue;
+            }
+
+            FastExcelChunkBuffer buffer;
+            try {
+                buffer = pending.poll().join();
+            } catch (CompletionException e) {
+                throw e.getCause() == null ? e : e.getCause();
+            }
+            if (row + buffer.getRowCount() > Worksheet.MAX_ROWS)
+                throw new IllegalArgumentException("Table does not fit into worksheet");
+            row += buffer.write(worksheet, row, startColumn, styles);
+            event.add(buffer.getObjectCount(), buffer.getRowCount(), buffer.getCellCount());
+            mapper.flush(worksheet, buffer.getRowCount());
+            buffer.clear();
+            freeBuffers.add(buffer);
+        }
+        event.commit(mapper.getRoot().getClazz(), worksheet);
+        return new ExcelTableExtent(startRow, startColumn, row - startRow, mapper.getPlan().getHeaderBlock().getWidth());
+    }
+
+    private void mapPartitionToExcelSheet(@NonNull Worksheet worksheet, @NonNull Iterable<? extends T> objects) {
+        var event = new FastExcelExportEvent();
+        event.begin();
+        var styles = mapper.bindStyles(worksheet);
+        var layout = mapper.newLayout();
+        mapper.mapHeadersToExcelSheet(0, 0, worksheet, styles);
+        int[] row = {mapper.getHeaderHeight()};
+        mapper.forEachPrefetched(objects.iterator(), object -> {
+            // rows of object are known from layout, so worksheet is checked before anything is written
+            long layoutNanos = mapper.layOut(object, layout);
+            int rows = layout.getRowCount();
+            if (row[0] + rows > Worksheet.MAX_ROWS)
+                throw new IllegalArgumentException("Objects of worksheet " + worksheet.getName() + " take more than "
+                        + Worksheet.MAX_ROWS + " rows, partition should be split into smaller ones");
+            mapper.writeLayout(worksheet, row[0], 0, styles, layout, layoutNanos, FastExcelMapper.NO_ROW_LISTENER);
+            row[0] += rows;
+            event.add(rows, layout.getCellCount());
+        });
+        event.commit(mapper.getRoot().getClazz(), worksheet);
+    }
+
+    /**
+     * Waits for all tasks, the first failure is rethrown with the others suppressed
+     */
+    @SneakyThrows
+    private static void join(@NonNull List<CompletableFuture<Void>> tasks) {
+        Throwable failure = null;
+        for (var task : tasks) {
+            try {
+                task.join();
+            } catch (CompletionException e) {
+                var cause = e.getCause() == null ? e : e.getCause();
+                if (failure == null) failure = cause;
+                else failure.addSuppressed(cause);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
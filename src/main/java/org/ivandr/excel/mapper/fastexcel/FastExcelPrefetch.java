@@ -0,0 +1,40 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Singular;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of batched loading of associations, which is applied by
+ * {@link FastExcelMapper#withPrefetch(FastExcelPrefetch)}.
+ * Exported objects are taken in batches, loaders of each level are called with all owners of the level
+ * before any object of batch is exported, so data layer could replace N+1 lazy loads by a few bulk ones.
+ * Loaders are registered by header paths of getters (e.g. ["Jobs"] or ["Jobs", "Manager"]).
+ */
+@Getter
+public final class FastExcelPrefetch {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * maximal number of exported objects and of owners passed to one call of loader
+     */
+    private final int batchSize;
+    /**
+     * loaders by header path of getter
+     */
+    @NonNull
+    private final Map<List<String>, FastExcelAssociationLoader> loaders;
+
+    @Builder
+    private FastExcelPrefetch(Integer batchSize,
+                              @Singular Map<List<String>, FastExcelAssociationLoader> loaders) {
+        this.batchSize = batchSize == null ? DEFAULT_BATCH_SIZE : batchSize;
+        this.loaders = Map.copyOf(loaders);
+        if (this.batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+    }
+}
@@ -0,0 +1,118 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link FastExcelPrefetch} compiled for nodes of {@link FastExcelExportPlan}.
+ * Batch is traversed level by level (pre-order of plan visits parents before children),
+ * owners of each node are collected from values of its parent, so only getters on the way to nodes
+ * with loaders are invoked before export (they are invoked once more, when objects are exported).
+ * Prefetcher keeps no state between calls, so it could be shared by threads.
+ */
+final class FastExcelPrefetcher {
+    @NonNull
+    private final FastExcelExportPlan plan;
+    @Getter
+    @NonNull
+    private final FastExcelPrefetch prefetch;
+    /**
+     * loader of node (null if association of node is not prefetched)
+     */
+    @NonNull
+    private final FastExcelAssociationLoader[] loaders;
+    /**
+     * whether values of node are owners of some prefetched descendant
+     */
+    @NonNull
+    private final boolean[] traversed;
+
+    FastExcelPrefetcher(@NonNull FastExcelExportPlan plan, @NonNull FastExcelPrefetch prefetch) {
+        this.plan = plan;
+        this.prefetch = prefetch;
+        this.loaders = new FastExcelAssociationLoader[plan.size()];
+        this.traversed = new boolean[plan.size()];
+
+        var paths = plan.headerPaths();
+        for (int i = 1; i < plan.size(); i++) {
+            this.loaders[i] = prefetch.getLoaders().get(paths.get(i));
+        }
+        // reversed pre-order visits children before parents
+        for (int i = plan.size() - 1; i > FastExcelExportPlan.ROOT; i--) {
+            if (this.loaders[i] != null || this.traversed[i])
+                this.traversed[plan.getParents()[i]] = true;
+        }
+    }
+
+    /**
+     * Takes objects in batches, associations of batch are loaded before its objects are passed to action
+     */
+    <T> void forEachPrefetched(@NonNull Iterator<? extends T> objects, @NonNull Consumer<? super T> action) {
+        var batch = new ArrayList<T>(prefetch.getBatchSize());
+        while (objects.hasNext()) {
+            batch.add(objects.next());
+            if (batch.size() == prefetch.getBatchSize() || !objects.hasNext()) {
+                prefetch(batch);
+                batch.forEach(action);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Calls loaders of all levels with owners from objects of batch
+     */
+    @SuppressWarnings("unchecked")
+    void prefetch(@NonNull List<?> batch) {
+        var owners = new List[plan.size()];
+        owners[FastExcelExportPlan.ROOT] = withoutNulls(batch);
+
+        for (int node = 1; node < plan.size(); node++) {
+            var nodeOwners = (List<Object>) owners[plan.getParents()[node]];
+            if (nodeOwners == null || nodeOwners.isEmpty()) continue;
+
+            if (loaders[node] != null) {
+                for (int from = 0; from < nodeOwners.size(); from += prefetch.getBatchSize()) {
+                    loaders[node].load(nodeOwners.subList(from,
+                            Math.min(nodeOwners.size(), from + prefetch.getBatchSize())));
+                }
+            }
+            if (traversed[node]) owners[node] = values(node, nodeOwners);
+        }
+    }
+
+    /**
+     * @return not null values of node (elements in case of collection)
+     */
+    @NonNull
+    private List<Object> values(int node, @NonNull List<Object> owners) {
+        var values = new ArrayList<>(owners.size());
+        for (var owner : owners) {
+            if (!plan.getCollectionMappings()[node]) {
+                var value = plan.getValueGetters()[node].apply(owner);
+                if (value != null) values.add(value);
+                continue;
+            }
+            var collection = plan.getCollectionGetters()[node].apply(owner);
+            if (collection == null) continue;
+            for (var element : collection) {
+                if (element != null) values.add(element);
+            }
+        }
+        return values;
+    }
+
+    @NonNull
+    private static List<Object> withoutNulls(@NonNull List<?> objects) {
+        var owners = new ArrayList<>(objects.size());
+        for (var object : objects) {
+            if (object != null) owners.add(object);
+        }
+        return owners;
+    }
+}
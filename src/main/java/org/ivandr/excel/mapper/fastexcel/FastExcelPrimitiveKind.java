@@ -0,0 +1,116 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+/**
+ * Primitive types, which are read by {@link FastExcelMappingNode.PrimitiveGetter} and kept unboxed
+ * as raw bits of long until they are written.
+ * Worksheet accepts only {@link Number} and {@link Boolean}, so value is boxed once, when cell is written
+ * (booleans and small integers are taken from caches of boxes).
+ */
+enum FastExcelPrimitiveKind {
+    INT(int.class) {
+        @Override
+        long read(@NonNull FastExcelMappingNode.PrimitiveGetter getter, @NonNull Object object) {
+            return ((FastExcelMappingNode.IntGetter) getter).applyAsInt(object);
+        }
+
+        @Override
+        void write(@NonNull Worksheet worksheet, int row, int column, long bits) {
+            worksheet.value(row, column, (int) bits);
+        }
+    },
+    LONG(long.class) {
+        @Override
+        long read(@NonNull FastExcelMappingNode.PrimitiveGetter getter, @NonNull Object object) {
+            return ((FastExcelMappingNode.LongGetter) getter).applyAsLong(object);
+        }
+
+        @Override
+        void write(@NonNull Worksheet worksheet, int row, int column, long bits) {
+            worksheet.value(row, column, bits);
+        }
+    },
+    DOUBLE(double.class) {
+        @Override
+        long read(@NonNull FastExcelMappingNode.PrimitiveGetter getter, @NonNull Object object) {
+            return Double.doubleToRawLongBits(((FastExcelMappingNode.DoubleGetter) getter).applyAsDouble(object));
+        }
+
+        @Override
+        void write(@NonNull Worksheet worksheet, int row, int column, long bits) {
+            worksheet.value(row, column, Double.longBitsToDouble(bits));
+        }
+    },
+    BOOLEAN(boolean.class) {
+        @Override
+        long read(@NonNull FastExcelMappingNode.PrimitiveGetter getter, @NonNull Object object) {
+            return ((FastExcelMappingNode.BooleanGetter) getter).applyAsBoolean(object) ? 1 : 0;
+        }
+
+        @Override
+        void write(@NonNull Worksheet worksheet, int row, int column, long bits) {
+            worksheet.value(row, column, bits != 0);
+        }
+    };
+
+    /**
+     * type returned by getter
+     */
+    @NonNull
+    private final Class<?> type;
+
+    FastExcelPrimitiveKind(@NonNull Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * @return value of getter as raw bits
+     */
+    abstract long read(@NonNull FastExcelMappingNode.PrimitiveGetter getter, @NonNull Object object);
+
+    abstract void write(@NonNull Worksheet worksheet, int row, int column, long bits);
+
+    /**
+     * @param type type returned by getter
+     * @return kind, which getter of type is specialized to, null if it is boxed
+     */
+    static FastExcelPrimitiveKind forType(@NonNull Class<?> type) {
+        // byte and short are widened to int exactly, float is not widened,
+        // because double of it is written with noise digits (0.1f as 0.10000000149011612)
+        if (type == byte.class || type == short.class) return INT;
+        for (var kind : values()) {
+            if (kind.type == type) return kind;
+        }
+        return null;
+    }
+
+    /**
+     * @return interface of getter of kind
+     */
+    @NonNull
+    Class<? extends FastExcelMappingNode.PrimitiveGetter> getterInterface() {
+        return switch (this) {
+            case INT -> FastExcelMappingNode.IntGetter.class;
+            case LONG -> FastExcelMappingNode.LongGetter.class;
+            case DOUBLE -> FastExcelMappingNode.DoubleGetter.class;
+            case BOOLEAN -> FastExcelMappingNode.BooleanGetter.class;
+        };
+    }
+
+    @NonNull
+    String methodName() {
+        return switch (this) {
+            case INT -> "applyAsInt";
+            case LONG -> "applyAsLong";
+            case DOUBLE -> "applyAsDouble";
+            case BOOLEAN -> "applyAsBoolean";
+        };
+    }
+
+    @NonNull
+    Class<?> getType() {
+        return type;
+    }
+}
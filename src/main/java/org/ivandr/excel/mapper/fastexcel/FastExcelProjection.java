@@ -0,0 +1,59 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Subset of columns of mapper, which is applied by {@link FastExcelMapper#project(FastExcelProjection)}.
+ * Columns are selected by header paths: header names from the top header down to the header of node
+ * (e.g. ["Jobs", "Company name"]).
+ */
+public final class FastExcelProjection {
+    @NonNull
+    private final Predicate<List<String>> includes;
+
+    private FastExcelProjection(@NonNull Predicate<List<String>> includes) {
+        this.includes = includes;
+    }
+
+    /**
+     * Predicate is tested for inner headers too, rejected header is pruned with all headers under it
+     * @param includes predicate of header path
+     */
+    @NonNull
+    public static FastExcelProjection of(@NonNull Predicate<List<String>> includes) {
+        return new FastExcelProjection(includes);
+    }
+
+    /**
+     * Keeps selected headers with all headers under them (e.g. ["Jobs"] keeps all columns of jobs)
+     * @param headerPaths paths of selected headers
+     */
+    @NonNull
+    public static FastExcelProjection ofHeaderPaths(@NonNull Collection<List<String>> headerPaths) {
+        var selected = List.copyOf(headerPaths);
+        return new FastExcelProjection(path -> selected.stream()
+                .anyMatch(header -> isPrefix(path, header) || isPrefix(header, path)));
+    }
+
+    /**
+     * @see #ofHeaderPaths(Collection)
+     */
+    @NonNull
+    @SafeVarargs
+    public static FastExcelProjection ofHeaderPaths(@NonNull List<String>... headerPaths) {
+        return ofHeaderPaths(List.of(headerPaths));
+    }
+
+    @NonNull
+    Predicate<List<String>> getIncludes() {
+        return includes;
+    }
+
+    private static boolean isPrefix(@NonNull List<String> prefix, @NonNull List<String> path) {
+        return prefix.size() <= path.size() && prefix.equals(path.subList(0, prefix.size()));
+    }
+}
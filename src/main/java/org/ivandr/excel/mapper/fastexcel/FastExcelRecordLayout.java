@@ -0,0 +1,415 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Values of one exported object, extracted by single traversal of {@link FastExcelExportPlan}.
+ * Each getter is invoked exactly once per object, its result is kept in pre-order sequence
+ * (children of null values are skipped, elements of collections follow their size),
+ * so writing replays the same traversal without invoking getters again.
+ * Row spans are derived from collection sizes found during extraction
+ * (see {@link FastExcelLayoutMode}), then cells are placed by replay of extracted values
+ * and ordered by rows, so object could be written row by row.
+ * Primitive leaves are kept unboxed as raw bits in separate sequence (see {@link FastExcelPrimitiveKind}).
+ * Layout is reused between objects, so one instance must not be shared by threads.
+ */
+final class FastExcelRecordLayout {
+    /**
+     * value of cell, whose raw bits are kept in {@link #getCellBits(int)}
+     */
+    static final Object PRIMITIVE = new Object();
+
+    @NonNull
+    private final FastExcelExportPlan plan;
+    @NonNull
+    private final FastExcelLayoutMode mode;
+    /**
+     * listener of getter invocations, which are measured only if it is not {@link FastExcelExportListener#NONE}
+     */
+    @NonNull
+    private final FastExcelExportListener listener;
+    private final boolean measured;
+    /**
+     * header paths of nodes, which identify getters for listener (null if nothing is measured)
+     */
+    private final List<List<String>> headerPaths;
+
+    /**
+     * results of getters and collection elements in pre-order
+     */
+    private Object[] values = new Object[64];
+    private int valueCount;
+    private int valueCursor;
+    /**
+     * raw bits of primitive leaves in pre-order
+     */
+    private long[] primitives = new long[16];
+    private int primitiveCount;
+    private int primitiveCursor;
+    /**
+     * sizes of collections in pre-order
+     */
+    private int[] sizes = new int[16];
+    private int sizeCount;
+    private int sizeCursor;
+    /**
+     * rows required by collection elements (own collections only) in pre-order
+     */
+    private int[] elementSpans = new int[16];
+    private int elementSpanCount;
+    private int elementSpanCursor;
+
+    /**
+     * index - treeHeight,
+     * value - maximal size of collections on this tree height (at least 1)
+     */
+    private final int[] maxCollectionSizes;
+    /**
+     * index - treeHeight,
+     * value - number of rows required for one value of the tree height
+     * (including all children of current height), last one is a stub for the deepest collections
+     */
+    private final int[] rowSpans;
+    /**
+     * number of rows taken by object
+     */
+    private int rowCount;
+
+    /**
+     * cells placed by replay of extracted values: leaf node, row offset from the first row of object,
+     * number of merged rows and value (null for fallback),
+     * cells covered by merged region above them have zero span and are only styled
+     */
+    private int[] cellNodes = new int[64];
+    private int[] cellRows = new int[64];
+    private int[] cellSpans = new int[64];
+    private Object[] cellValues = new Object[64];
+    private long[] cellBits = new long[64];
+    private int cellCount;
+    /**
+     * indexes of cells ordered by row, cells of row r are in [rowStarts[r], rowStarts[r + 1])
+     */
+    private int[] rowOrder = new int[64];
+    private int[] rowStarts = new int[16];
+
+    FastExcelRecordLayout(@NonNull FastExcelExportPlan plan, @NonNull FastExcelLayoutMode mode) {
+        this(plan, mode, FastExcelExportListener.NONE);
+    }
+
+    FastExcelRecordLayout(@NonNull FastExcelExportPlan plan, @NonNull FastExcelLayoutMode mode,
+                          @NonNull FastExcelExportListener listener) {
+        this.plan = plan;
+        this.mode = mode;
+        this.listener = listener;
+        this.measured = listener != FastExcelExportListener.NONE;
+        this.headerPaths = this.measured ? plan.headerPaths() : null;
+        this.maxCollectionSizes = new int[plan.getMaxTreeHeight() + 1];
+        this.rowSpans = new int[plan.getMaxTreeHeight() + 2];
+    }
+
+    /**
+     * Extracts values of object and places its cells, previous content of layout is discarded
+     */
+    void layOut(Object value) {
+        Arrays.fill(values, 0, valueCount, null);
+        Arrays.fill(cellValues, 0, cellCount, null);
+        valueCount = valueCursor = 0;
+        primitiveCount = primitiveCursor = 0;
+        sizeCount = sizeCursor = 0;
+        elementSpanCount = elementSpanCursor = 0;
+        cellCount = 0;
+        Arrays.fill(maxCollectionSizes, 1);
+
+        // getters are invoked only here, placement replays extracted values
+        int requiredRows = extractChildren(FastExcelExportPlan.ROOT, value);
+
+        if (mode == FastExcelLayoutMode.RAGGED) {
+            rowCount = requiredRows;
+            placeRaggedChildren(FastExcelExportPlan.ROOT, value, 0, rowCount);
+        } else {
+            rowSpans[maxCollectionSizes.length] = 1;
+            for (int i = maxCollectionSizes.length - 1; i >= 0; i--) {
+                rowSpans[i] = maxCollectionSizes[i] * rowSpans[i + 1];
+            }
+            rowCount = rowSpans[0];
+            placeRectangularChildren(FastExcelExportPlan.ROOT, value, 0);
+        }
+        orderCellsByRow();
+    }
+
+    /**
+     * @return number of rows required by value with its own collections
+     */
+    private int extractChildren(int node, Object value) {
+        if (value == null) return 1;
+
+        int requiredRows = 1;
+        for (int child : plan.getChildren()[node]) {
+            var primitiveKind = plan.getPrimitiveKinds()[child];
+            if (primitiveKind != null) {
+                addPrimitive(measured ? readMeasured(child, primitiveKind, value) :
+                        primitiveKind.read(plan.getPrimitiveGetters()[child], value));
+                continue;
+            }
+            if (!plan.getCollectionMappings()[child]) {
+                var childValue = measured ? applyMeasured(child, value) :
+                        plan.getValueGetters()[child].apply(value);
+                addValue(childValue);
+                if (!plan.isLeaf(child))
+                    requiredRows = Math.max(requiredRows, extractChildren(child, childValue));
+                continue;
+            }
+
+            var collection = measured ? iterableMeasured(child, value) :
+                    plan.getCollectionGetters()[child].apply(value);
+            // size is known only after iteration, so its slot is reserved before elements
+            int sizeSlot = addSize();
+            if (collection == null) continue;
+
+            // iterable is not required to know its size, so it is counted
+            int size = 0;
+            int collectionRows = 0;
+            for (var element : collection) {
+                size++;
+                addValue(element);
+                int spanSlot = addElementSpan();
+                int elementRows = plan.isLeaf(child) ? 1 : extractChildren(child, element);
+                elementSpans[spanSlot] = elementRows;
+                collectionRows += elementRows;
+            }
+            sizes[sizeSlot] = size;
+            requiredRows = Math.max(requiredRows, collectionRows);
+            int treeHeight = plan.getTreeHeights()[child];
+            maxCollectionSizes[treeHeight] = Math.max(maxCollectionSizes[treeHeight], size);
+        }
+        return requiredRows;
+    }
+
+    private Object applyMeasured(int node, Object value) {
+        long started = System.nanoTime();
+        var result = plan.getValueGetters()[node].apply(value);
+        listener.getterInvoked(headerPaths.get(node), System.nanoTime() - started);
+        return result;
+    }
+
+    private long readMeasured(int node, @NonNull FastExcelPrimitiveKind kind, Object value) {
+        long started = System.nanoTime();
+        long result = kind.read(plan.getPrimitiveGetters()[node], value);
+        listener.getterInvoked(headerPaths.get(node), System.nanoTime() - started);
+        return result;
+    }
+
+    private Iterable<Object> iterableMeasured(int node, Object value) {
+        long started = System.nanoTime();
+        var result = plan.getCollectionGetters()[node].apply(value);
+        listener.getterInvoked(headerPaths.get(node), System.nanoTime() - started);
+        return result;
+    }
+
+    private void placeRectangularChildren(int node, Object value, int rowOffset) {
+        for (int child : plan.getChildren()[node]) {
+            int treeHeight = plan.getTreeHeights()[child];
+
+            if (!plan.getCollectionMappings()[child]) {
+                var childValue = value == null ? null : nextValue(child);
+                placeRectangularNode(child, childValue, rowOffset, rowSpans[treeHeight]);
+                continue;
+            }
+
+            // collection is padded virtually to the maximal size of its tree height,
+            // so source collection is neither copied nor modified
+            int size = value == null ? 0 : nextSize();
+            int rowSpan = rowSpans[treeHeight + 1];
+            for (int i = 0; i < maxCollectionSizes[treeHeight]; i++) {
+                var element = i < size ? nextValue() : null;
+                placeRectangularNode(child, element, rowOffset + i * rowSpan, rowSpan);
+            }
+        }
+    }
+
+    private void placeRectangularNode(int node, Object value, int rowOffset, int rowSpan) {
+        if (plan.isLeaf(node)) {
+            addCells(node, rowOffset, rowSpan, value);
+        } else {
+            placeRectangularChildren(node, value, rowOffset);
+        }
+    }
+
+    /**
+     * @param rowSpan rows of value, its collections fill them by own elements, rest is padding
+     */
+    private void placeRaggedChildren(int node, Object value, int rowOffset, int rowSpan) {
+        for (int child : plan.getChildren()[node]) {
+            if (!plan.getCollectionMappings()[child]) {
+                var childValue = value == null ? null : nextValue(child);
+                placeRaggedNode(child, childValue, rowOffset, rowSpan);
+                continue;
+            }
+
+            int size = value == null ? 0 : nextSize();
+            int usedRows = 0;
+            for (int i = 0; i < size; i++) {
+                var element = nextValue();
+                int elementRows = elementSpans[elementSpanCursor++];
+                placeRaggedNode(child, element, rowOffset + usedRows, elementRows);
+                usedRows += elementRows;
+            }
+            // one padding element takes the rest of rows
+            if (usedRows < rowSpan) {
+                placeRaggedNode(child, null, rowOffset + usedRows, rowSpan - usedRows);
+            }
+        }
+    }
+
+    private void placeRaggedNode(int node, Object value, int rowOffset, int rowSpan) {
+        if (plan.isLeaf(node)) {
+            addCells(node, rowOffset, rowSpan, value);
+        } else {
+            placeRaggedChildren(node, value, rowOffset, rowSpan);
+        }
+    }
+
+    private void addValue(Object value) {
+        if (valueCount == values.length) values = Arrays.copyOf(values, valueCount * 2);
+        values[valueCount++] = value;
+    }
+
+    private void addPrimitive(long bits) {
+        if (primitiveCount == primitives.length) primitives = Arrays.copyOf(primitives, primitiveCount * 2);
+        primitives[primitiveCount++] = bits;
+    }
+
+    private int addSize() {
+        if (sizeCount == sizes.length) sizes = Arrays.copyOf(sizes, sizeCount * 2);
+        sizes[sizeCount] = 0;
+        return sizeCount++;
+    }
+
+    private int addElementSpan() {
+        if (elementSpanCount == elementSpans.length)
+            elementSpans = Arrays.copyOf(elementSpans, elementSpanCount * 2);
+        return elementSpanCount++;
+    }
+
+    /**
+     * @return next extracted value in pre-order
+     */
+    private Object nextValue() {
+        return values[valueCursor++];
+    }
+
+    /**
+     * @return next extracted value of non collection node in pre-order,
+     * {@link #PRIMITIVE} for primitive leaf
+     */
+    private Object nextValue(int node) {
+        return plan.getPrimitiveKinds()[node] != null ? PRIMITIVE : nextValue();
+    }
+
+    /**
+     * @return size of next extracted collection in pre-order
+     */
+    private int nextSize() {
+        return sizes[sizeCursor++];
+    }
+
+    /**
+     * Adds cell of leaf with its value and cells covered by its merged region
+     */
+    private void addCells(int node, int rowOffset, int rowSpan, Object value) {
+        addCell(node, rowOffset, rowSpan, value);
+        for (int covered = 1; covered < rowSpan; covered++) {
+            addCell(node, rowOffset + covered, 0, null);
+        }
+    }
+
+    private void addCell(int node, int rowOffset, int rowSpan, Object value) {
+        if (cellCount == cellNodes.length) {
+            int capacity = cellCount * 2;
+            cellNodes = Arrays.copyOf(cellNodes, capacity);
+            cellRows = Arrays.copyOf(cellRows, capacity);
+            cellSpans = Arrays.copyOf(cellSpans, capacity);
+            cellValues = Arrays.copyOf(cellValues, capacity);
+            cellBits = Arrays.copyOf(cellBits, capacity);
+        }
+        cellNodes[cellCount] = node;
+        cellRows[cellCount] = rowOffset;
+        cellSpans[cellCount] = rowSpan;
+        cellValues[cellCount] = value;
+        if (value == PRIMITIVE) cellBits[cellCount] = primitives[primitiveCursor++];
+        cellCount++;
+    }
+
+    /**
+     * Orders placed cells by row (counting sort), cells of one row keep their placement order
+     */
+    private void orderCellsByRow() {
+        if (rowStarts.length < rowCount + 1) rowStarts = new int[Math.max(rowCount + 1, rowStarts.length * 2)];
+        if (rowOrder.length < cellCount) rowOrder = new int[cellNodes.length];
+
+        Arrays.fill(rowStarts, 0, rowCount + 1, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            rowStarts[cellRows[cell] + 1]++;
+        }
+        for (int row = 0; row < rowCount; row++) {
+            rowStarts[row + 1] += rowStarts[row];
+        }
+        // rowStarts[r] is used as insertion position and is restored afterwards
+        for (int cell = 0; cell < cellCount; cell++) {
+            rowOrder[rowStarts[cellRows[cell]]++] = cell;
+        }
+        for (int row = rowCount; row > 0; row--) {
+            rowStarts[row] = rowStarts[row - 1];
+        }
+        rowStarts[0] = 0;
+    }
+
+    int getRowStart(int rowOffset) {
+        return rowStarts[rowOffset];
+    }
+
+    /**
+     * @param position position in row order
+     * @return index of cell
+     */
+    int getOrderedCell(int position) {
+        return rowOrder[position];
+    }
+
+    int getCellNode(int cell) {
+        return cellNodes[cell];
+    }
+
+    int getCellRow(int cell) {
+        return cellRows[cell];
+    }
+
+    int getCellSpan(int cell) {
+        return cellSpans[cell];
+    }
+
+    Object getCellValue(int cell) {
+        return cellValues[cell];
+    }
+
+    /**
+     * @return raw bits of cell, whose value is {@link #PRIMITIVE}
+     */
+    long getCellBits(int cell) {
+        return cellBits[cell];
+    }
+
+    /**
+     * @return number of placed cells (including cells covered by merged regions)
+     */
+    int getCellCount() {
+        return cellCount;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+}
@@ -0,0 +1,51 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+/**
+ * Configuration of rollover of {@link FastExcelSheetWriter} to new worksheets of the same workbook.
+ * Object, which does not fit into rows left on worksheet, is written to the next worksheet
+ * (objects are never split), new worksheet gets header at the same position as the first one.
+ * By default worksheets are filled up to the row limit of Excel and named "Name", "Name (2)", "Name (3)", ...
+ */
+@Getter
+public final class FastExcelRollover {
+    public static final FastExcelRollover DEFAULT = FastExcelRollover.builder().build();
+
+    /**
+     * maximal number of rows of worksheet (counted from the first row of worksheet, not of table)
+     */
+    private final int maxRowsPerSheet;
+    @NonNull
+    private final SheetNaming naming;
+
+    @Builder
+    private FastExcelRollover(Integer maxRowsPerSheet, SheetNaming naming) {
+        this.maxRowsPerSheet = maxRowsPerSheet == null ? Worksheet.MAX_ROWS : maxRowsPerSheet;
+        this.naming = naming == null ? FastExcelRollover::numberedName : naming;
+        if (this.maxRowsPerSheet < 1 || this.maxRowsPerSheet > Worksheet.MAX_ROWS)
+            throw new IllegalArgumentException("Rows per sheet must be in [1, " + Worksheet.MAX_ROWS + "]");
+    }
+
+    @FunctionalInterface
+    public interface SheetNaming {
+        /**
+         * @param firstSheetName name of the first worksheet of series
+         * @param sheetIndex index of worksheet in series (the first one has index 0)
+         * @return name of worksheet (it is made unique by workbook if it is taken)
+         */
+        String sheetName(String firstSheetName, int sheetIndex);
+    }
+
+    /**
+     * Appends number of worksheet, name is shortened to keep number within 31 characters allowed by Excel
+     */
+    @NonNull
+    private static String numberedName(@NonNull String firstSheetName, int sheetIndex) {
+        var suffix = " (" + (sheetIndex + 1) + ")";
+        return firstSheetName.substring(0, Math.min(firstSheetName.length(), 31 - suffix.length())) + suffix;
+    }
+}
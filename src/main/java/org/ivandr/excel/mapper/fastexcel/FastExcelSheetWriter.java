@@ -0,0 +1,146 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.excel.mapper.ExcelSheetWriter;
+
+/**
+ * Streaming session of {@link FastExcelMapper}.
+ * Each appended object is written right away row by row and worksheet is flushed
+ * every {@code flushEveryRows} completed rows (even in the middle of object),
+ * so memory is bounded by flush interval instead of the whole dataset.
+ * Flushed rows could not be modified anymore, so nothing else should be written
+ * above {@link #getNextRow()} while session is open.
+ * Object, which does not fit into rows left on worksheet (see {@link FastExcelRollover}),
+ * is written to a new worksheet of the same workbook with the same header,
+ * the full worksheet is flushed and finished right away, so it could not be modified anymore.
+ */
+public class FastExcelSheetWriter<T> implements ExcelSheetWriter<T> {
+    public static final int DEFAULT_FLUSH_EVERY_ROWS = 1000;
+
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+    @NonNull
+    private final FastExcelRollover rollover;
+    @NonNull
+    private final String firstSheetName;
+    @NonNull
+    private final FastExcelStyleRegistry.Styles styles;
+    @NonNull
+    private final FastExcelRecordLayout layout;
+    private final int startRow;
+    private final int startColumn;
+    private final int flushEveryRows;
+
+    /**
+     * worksheet, which is written now
+     */
+    @Getter
+    @NonNull
+    private Worksheet worksheet;
+    /**
+     * JFR event of current worksheet
+     */
+    @NonNull
+    private FastExcelExportEvent event;
+    /**
+     * number of worksheets written by session
+     */
+    @Getter
+    private int sheetCount = 1;
+    @Getter
+    private int nextRow;
+    private int flushedRow;
+    private boolean closed = false;
+
+    FastExcelSheetWriter(@NonNull FastExcelMapper<T> mapper,
+                         @NonNull Worksheet worksheet,
+                         int startRow, int startColumn,
+                         int flushEveryRows,
+                         @NonNull FastExcelRollover rollover) {
+        if (flushEveryRows < 1)
+            throw new IllegalArgumentException("Flush interval must be positive");
+        if (startRow + mapper.getHeaderHeight() >= rollover.getMaxRowsPerSheet())
+            throw new IllegalArgumentException("Header leaves no rows for values on worksheet");
+
+        this.mapper = mapper;
+        this.rollover = rollover;
+        this.worksheet = worksheet;
+        this.firstSheetName = worksheet.getName();
+        this.startRow = startRow;
+        this.startColumn = startColumn;
+        this.flushEveryRows = flushEveryRows;
+        this.event = new FastExcelExportEvent();
+        this.event.begin();
+        this.styles = mapper.bindStyles(worksheet);
+        this.layout = mapper.newLayout();
+
+        mapper.mapHeadersToExcelSheet(startRow, startColumn, worksheet, styles);
+        this.nextRow = startRow + mapper.getHeaderHeight();
+        this.flushedRow = startRow;
+    }
+
+    /**
+     * @throws IllegalArgumentException if object takes more rows than fit below header of empty worksheet
+     */
+    @Override
+    public void append(T object) {
+        if (closed)
+            throw new IllegalStateException("Writer is already closed");
+
+        long layoutNanos = mapper.layOut(object, layout);
+        int rows = layout.getRowCount();
+        if (nextRow + rows > rollover.getMaxRowsPerSheet()) {
+            int firstValueRow = startRow + mapper.getHeaderHeight();
+            if (firstValueRow + rows > rollover.getMaxRowsPerSheet())
+                throw new IllegalArgumentException("Object takes " + rows + " rows, which do not fit into worksheet of "
+                        + rollover.getMaxRowsPerSheet() + " rows");
+            rollOver();
+        }
+        mapper.writeLayout(worksheet, nextRow, startColumn, styles, layout, layoutNanos, this::rowCompleted);
+        nextRow += rows;
+        event.add(rows, layout.getCellCount());
+    }
+
+    private void rowCompleted(int row) {
+        if (row + 1 - flushedRow >= flushEveryRows) {
+            flush(row + 1);
+        }
+    }
+
+    /**
+     * Finishes current worksheet and continues on the new one,
+     * finished worksheet is written out, so the next one could be flushed to the same stream
+     */
+    @SneakyThrows
+    private void rollOver() {
+        flush(nextRow);
+        worksheet.finish();
+        event.commit(mapper.getRoot().getClazz(), worksheet);
+
+        worksheet = worksheet.getWorkbook().newWorksheet(rollover.getNaming().sheetName(firstSheetName, sheetCount++));
+        event = new FastExcelExportEvent();
+        event.begin();
+        mapper.mapHeadersToExcelSheet(startRow, startColumn, worksheet, styles);
+        nextRow = startRow + mapper.getHeaderHeight();
+        flushedRow = startRow;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        flush(nextRow);
+        event.commit(mapper.getRoot().getClazz(), worksheet);
+    }
+
+    /**
+     * @param row first row, which is not completed yet
+     */
+    private void flush(int row) {
+        mapper.flush(worksheet, row - flushedRow);
+        flushedRow = row;
+    }
+}
@@ -0,0 +1,198 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.StyleSetter;
+import org.dhatim.fastexcel.Workbook;
+import org.dhatim.fastexcel.Worksheet;
+import org.ivandr.excel.basics.ExcelCellStyleInfo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of cell styles of one workbook.
+ * Styles are applied only by public {@link StyleSetter} of fastexcel, which caches equal styles of workbook
+ * itself, registry keeps styles, which were already built in workbook, so only the first build is reported.
+ * Setter is built once per styled range, so values are styled by blocks of cells (see {@link Styles#mark}),
+ * not cell by cell.
+ * Applied style is merged into previous style of the cell (cells are styled once, when they are written).
+ */
+final class FastExcelStyleRegistry {
+    private static final Map<Workbook, FastExcelStyleRegistry> REGISTRIES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Set<CellStyle> builtStyles = ConcurrentHashMap.newKeySet();
+
+    private FastExcelStyleRegistry() {
+    }
+
+    @NonNull
+    static FastExcelStyleRegistry forWorkbook(@NonNull Workbook workbook) {
+        return REGISTRIES.computeIfAbsent(workbook, wb -> new FastExcelStyleRegistry());
+    }
+
+    /**
+     * @param styles distinct styles, position in list is used as style id
+     * @return styles bound to this registry
+     */
+    @NonNull
+    Styles bind(@NonNull List<CellStyle> styles) {
+        return bind(styles, FastExcelExportListener.NONE);
+    }
+
+    /**
+     * @param listener listener of styles built in workbook
+     */
+    @NonNull
+    Styles bind(@NonNull List<CellStyle> styles, @NonNull FastExcelExportListener listener) {
+        return new Styles(styles, listener);
+    }
+
+    /**
+     * Applies style to all cells of the range, the first build of style in workbook is reported to listener
+     */
+    private void apply(@NonNull Worksheet worksheet, @NonNull CellStyle style,
+                       int top, int left, int bottom, int right,
+                       @NonNull FastExcelExportListener listener) {
+        if (listener == FastExcelExportListener.NONE || builtStyles.contains(style)) {
+            applyStyleToCell(styleSetter(worksheet, top, left, bottom, right), style);
+            return;
+        }
+        long started = System.nanoTime();
+        applyStyleToCell(styleSetter(worksheet, top, left, bottom, right), style);
+        if (builtStyles.add(style)) listener.styleResolved(System.nanoTime() - started);
+    }
+
+    @NonNull
+    private static StyleSetter styleSetter(@NonNull Worksheet worksheet, int top, int left, int bottom, int right) {
+        return top == bottom && left == right ? worksheet.style(top, left) :
+                worksheet.range(top, left, bottom, right).style();
+    }
+
+    private static void applyStyleToCell(@NonNull StyleSetter styleSetter,
+                                         @NonNull CellStyle cellStyle) {
+        var style = cellStyle.style();
+
+        styleSetter = styleSetter.borderStyle(style.borderStyle())
+                .fontSize(style.fontSize())
+                .horizontalAlignment(style.horizontalAlignment().getHorizontalAlignmentTag())
+                .verticalAlignment(style.verticalAlignment().getVerticalAlignmentFastExcelTag())
+                .wrapText(style.isWrapText());
+        if (style.isBold())
+            styleSetter = styleSetter.bold();
+        if (style.isItalic())
+            styleSetter = styleSetter.italic();
+        if (style.isUnderlined())
+            styleSetter = styleSetter.underlined();
+
+        var cellFormat = style.cellFormat().isBlank() ? cellStyle.defaultCellFormat() : style.cellFormat();
+        if (!cellFormat.isBlank())
+            styleSetter = styleSetter.format(cellFormat);
+
+        styleSetter.set();
+    }
+
+    /**
+     * Styles of one mapper by their ids.
+     * It must be used by one thread at the time.
+     */
+    final class Styles {
+        private static final int NO_RUN = -1;
+
+        @NonNull
+        private final CellStyle[] styles;
+        @NonNull
+        private final FastExcelExportListener listener;
+
+        /**
+         * open vertical run of marked cells of each slot: style id, column, top and bottom row
+         */
+        private int[] openRuns = new int[0];
+        /**
+         * closed vertical runs in order of closing, 4 ints per run as in open runs
+         */
+        private int[] closedRuns = new int[64];
+        private int closedRunCount;
+
+        private Styles(@NonNull List<CellStyle> styles, @NonNull FastExcelExportListener listener) {
+            this.listener = listener;
+            this.styles = styles.toArray(new CellStyle[0]);
+        }
+
+        /**
+         * Applies style to all cells of the range
+         */
+        void apply(@NonNull Worksheet worksheet, int styleId,
+                   int top, int left, int bottom, int right) {
+            FastExcelStyleRegistry.this.apply(worksheet, styles[styleId], top, left, bottom, right, listener);
+        }
+
+        /**
+         * Marks cell to be styled by {@link #applyMarked}, cells of slot (e.g. leaf column) on consecutive rows
+         * are joined into one run, so cells should be marked row by row
+         * @param slot column of table, cells of one slot are always on the same worksheet column
+         */
+        void mark(int slot, int styleId, int row, int column) {
+            if (slot * 4 >= openRuns.length) {
+                int length = openRuns.length;
+                openRuns = Arrays.copyOf(openRuns, Math.max(4 * (slot + 1), length * 2));
+                for (int i = length; i < openRuns.length; i += 4) openRuns[i] = NO_RUN;
+            }
+            int run = slot * 4;
+            if (openRuns[run] == styleId && openRuns[run + 1] == column && openRuns[run + 3] == row - 1) {
+                openRuns[run + 3] = row;
+                return;
+            }
+            closeRun(slot);
+            openRuns[run] = styleId;
+            openRuns[run + 1] = column;
+            openRuns[run + 2] = row;
+            openRuns[run + 3] = row;
+        }
+
+        /**
+         * Styles all marked cells, runs of neighbouring columns with the same style and rows
+         * are styled as one range
+         */
+        void applyMarked(@NonNull Worksheet worksheet) {
+            for (int slot = 0; slot < openRuns.length / 4; slot++) {
+                closeRun(slot);
+            }
+            int run = 0;
+            while (run < closedRunCount) {
+                int offset = run * 4;
+                int styleId = closedRuns[offset];
+                int left = closedRuns[offset + 1];
+                int top = closedRuns[offset + 2];
+                int bottom = closedRuns[offset + 3];
+                int right = left;
+                for (run++; run < closedRunCount; run++) {
+                    int next = run * 4;
+                    if (closedRuns[next] != styleId || closedRuns[next + 1] != right + 1 ||
+                            closedRuns[next + 2] != top || closedRuns[next + 3] != bottom) break;
+                    right++;
+                }
+                apply(worksheet, styleId, top, left, bottom, right);
+            }
+            closedRunCount = 0;
+        }
+
+        private void closeRun(int slot) {
+            int run = slot * 4;
+            if (openRuns[run] == NO_RUN) return;
+            if ((closedRunCount + 1) * 4 > closedRuns.length)
+                closedRuns = Arrays.copyOf(closedRuns, closedRuns.length * 2);
+            System.arraycopy(openRuns, run, closedRuns, closedRunCount * 4, 4);
+            closedRunCount++;
+            openRuns[run] = NO_RUN;
+        }
+    }
+
+    /**
+     * @param style style from annotation
+     * @param defaultCellFormat format, which is used if style does not define its own
+     *                          (e.g. dates are not readable without format)
+     */
+    record CellStyle(@NonNull ExcelCellStyleInfo style, @NonNull String defaultCellFormat) {
+    }
+}
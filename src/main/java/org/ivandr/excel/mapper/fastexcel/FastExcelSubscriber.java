@@ -0,0 +1,125 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.Workbook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber, which exports published objects to one worksheet of workbook created by caller.
+ * Objects are requested in batches and the next batch is requested only when the previous one is exported,
+ * worksheet is flushed every {@code flushEveryRows} rows, so flush blocks until output stream accepts the rows.
+ * Memory is bounded by batch size and flush interval and the first bytes are written after the first flush,
+ * regardless of number of published objects.
+ * Workbook is finished on completion of publisher, output stream is neither flushed nor closed.
+ * If publisher or export fails, workbook is not finished and written output must be discarded.
+ */
+public class FastExcelSubscriber<T> implements Flow.Subscriber<T> {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    @NonNull
+    private final FastExcelMapper<T> mapper;
+    @NonNull
+    private final Workbook workbook;
+    @NonNull
+    private final FastExcelSheetWriter<T> writer;
+    private final int batchSize;
+    /**
+     * objects of current batch, which are kept only if associations of batch are prefetched
+     */
+    private final List<T> batch;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    /**
+     * objects received from the last request
+     */
+    private int received;
+
+    /**
+     * @param mapper mapper of objects (its prefetch is applied to each batch)
+     * @param workbook workbook, which is finished when publisher completes
+     * @param sheetName name of worksheet
+     * @param batchSize number of objects requested at once
+     * @param flushEveryRows minimal number of written rows, after which worksheet is flushed
+     */
+    FastExcelSubscriber(@NonNull FastExcelMapper<T> mapper,
+                        @NonNull Workbook workbook,
+                        @NonNull String sheetName,
+                        int batchSize, int flushEveryRows) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.batch = mapper.isPrefetching() ? new ArrayList<>(batchSize) : null;
+        this.workbook = workbook;
+        this.writer = mapper.openSheetWriter(workbook.newWorksheet(sheetName), 0, 0, flushEveryRows);
+    }
+
+    /**
+     * @return future, which is completed when workbook is finished (or exceptionally if export fails)
+     */
+    @NonNull
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(@NonNull Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(@NonNull T object) {
+        if (completion.isDone()) return;
+        try {
+            if (batch != null) batch.add(object);
+            else writer.append(object);
+
+            if (++received == batchSize) {
+                exportBatch();
+                received = 0;
+                subscription.request(batchSize);
+            }
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            completion.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(@NonNull Throwable throwable) {
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (completion.isDone()) return;
+        try {
+            exportBatch();
+            writer.close();
+            workbook.finish();
+            completion.complete(null);
+        } catch (Exception e) {
+            completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Exports kept objects of batch with their associations prefetched
+     */
+    private void exportBatch() {
+        if (batch == null) return;
+        mapper.forEachPrefetched(batch.iterator(), writer::append);
+        batch.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.reader.Cell;
+
+/**
+ * Reads non-empty cell as value of specific type
+ * @param <T> type of value
+ */
+@FunctionalInterface
+public interface FastExcelValueReader<T> {
+    T read(@NonNull Cell cell);
+}
@@ -0,0 +1,102 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import com.google.common.primitives.Primitives;
+import lombok.NonNull;
+import org.dhatim.fastexcel.reader.Cell;
+import org.dhatim.fastexcel.reader.CellType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable registry of value readers by value type, counterpart of {@link FastExcelValueWriters}.
+ * Reader of leaf is resolved once, when importer is created, using declared type of getter.
+ * Reader must return exactly declared type, so unlike writers it is not resolved by supertypes.
+ * Enums are read by their name or by {@link Object#toString()}.
+ */
+public final class FastExcelValueReaders {
+    private static final FastExcelValueReaders DEFAULTS = new FastExcelValueReaders(new LinkedHashMap<>())
+            .with(String.class, Cell::getText)
+            .with(Boolean.class, cell -> cell.getType() == CellType.BOOLEAN
+                    ? cell.asBoolean()
+                    : Boolean.valueOf(cell.getText().trim()))
+            .with(BigDecimal.class, FastExcelValueReaders::readNumber)
+            .with(Number.class, FastExcelValueReaders::readNumber)
+            .with(BigInteger.class, cell -> readNumber(cell).toBigInteger())
+            .with(Double.class, cell -> readNumber(cell).doubleValue())
+            .with(Float.class, cell -> readNumber(cell).floatValue())
+            .with(Long.class, cell -> readNumber(cell).longValue())
+            .with(Integer.class, cell -> readNumber(cell).intValue())
+            .with(Short.class, cell -> readNumber(cell).shortValue())
+            .with(Byte.class, cell -> readNumber(cell).byteValue())
+            .with(LocalDateTime.class, FastExcelValueReaders::readDateTime)
+            .with(LocalDate.class, cell -> readDateTime(cell).toLocalDate())
+            .with(ZonedDateTime.class, cell -> readDateTime(cell).atZone(ZoneId.systemDefault()))
+            .with(Date.class, cell -> Date.from(readDateTime(cell).atZone(ZoneId.systemDefault()).toInstant()));
+
+    private final Map<Class<?>, FastExcelValueReader<?>> readers;
+
+    private FastExcelValueReaders(@NonNull Map<Class<?>, FastExcelValueReader<?>> readers) {
+        this.readers = readers;
+    }
+
+    /**
+     * @return readers of strings, numbers, booleans and dates, which are written by {@link FastExcelValueWriters#defaults()}
+     */
+    @NonNull
+    public static FastExcelValueReaders defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return copy of registry with reader of type
+     */
+    @NonNull
+    public <T> FastExcelValueReaders with(@NonNull Class<T> type, @NonNull FastExcelValueReader<? extends T> reader) {
+        var copy = new LinkedHashMap<>(this.readers);
+        copy.put(Primitives.wrap(type), reader);
+        return new FastExcelValueReaders(copy);
+    }
+
+    /**
+     * @param type declared type of values
+     * @return reader of type, null if type is not supported
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    FastExcelValueReader<Object> resolve(@NonNull Class<?> type) {
+        var reader = this.readers.get(Primitives.wrap(type));
+        if (reader != null) return (FastExcelValueReader<Object>) reader;
+        if (type.isEnum()) return cell -> readEnum((Class<? extends Enum>) type, cell.getText());
+        return null;
+    }
+
+    @NonNull
+    private static BigDecimal readNumber(@NonNull Cell cell) {
+        return cell.getType() == CellType.NUMBER ? cell.asNumber() : new BigDecimal(cell.getText().trim());
+    }
+
+    @NonNull
+    private static LocalDateTime readDateTime(@NonNull Cell cell) {
+        return cell.getType() == CellType.NUMBER ? cell.asDate() : LocalDateTime.parse(cell.getText().trim());
+    }
+
+    @NonNull
+    private static <E extends Enum<E>> E readEnum(@NonNull Class<E> type, @NonNull String text) {
+        return Arrays.stream(type.getEnumConstants())
+                .filter(e -> e.name().equals(text))
+                .findFirst()
+                .or(() -> Arrays.stream(type.getEnumConstants())
+                        .filter(e -> e.toString().equals(text))
+                        .findFirst())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No constant of %s is matching %s".formatted(type.getName(), text)));
+    }
+}
@@ -0,0 +1,13 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import lombok.NonNull;
+import org.dhatim.fastexcel.Worksheet;
+
+/**
+ * Writes non-null value of specific type into the cell
+ * @param <T> type of value
+ */
+@FunctionalInterface
+public interface FastExcelValueWriter<T> {
+    void write(@NonNull Worksheet worksheet, int row, int column, @NonNull T value);
+}
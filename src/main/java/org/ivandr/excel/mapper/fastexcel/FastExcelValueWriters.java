@@ -0,0 +1,106 @@
+package org.ivandr.excel.mapper.fastexcel;
+
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeToken;
+import lombok.NonNull;
+import org.ivandr.excel.basics.ExcelCellStyleInfo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable registry of value writers by value type.
+ * Writer of leaf is resolved once, when mapper is created, using declared type of getter:
+ * the closest registered supertype wins, values of unknown types are written as {@link Object#toString()}.
+ */
+public final class FastExcelValueWriters {
+    public static final String DEFAULT_DATE_FORMAT = "yyyy-mm-dd";
+    public static final String DEFAULT_DATE_TIME_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    private static final Registration<Object> TO_STRING = new Registration<>(
+            (worksheet, row, column, value) -> worksheet.value(row, column, value.toString()), "");
+
+    private static final FastExcelValueWriter<Number> NUMBER_WRITER =
+            (worksheet, row, column, value) -> worksheet.value(row, column, value);
+    private static final FastExcelValueWriter<Boolean> BOOLEAN_WRITER =
+            (worksheet, row, column, value) -> worksheet.value(row, column, value);
+
+    private static final FastExcelValueWriters DEFAULTS = new FastExcelValueWriters(new LinkedHashMap<>())
+            .with(String.class, (worksheet, row, column, value) -> worksheet.value(row, column, value))
+            .with(Number.class, NUMBER_WRITER)
+            .with(Boolean.class, BOOLEAN_WRITER)
+            .with(LocalDate.class, (worksheet, row, column, value) -> worksheet.value(row, column, value),
+                    DEFAULT_DATE_FORMAT)
+            .with(LocalDateTime.class, (worksheet, row, column, value) -> worksheet.value(row, column, value),
+                    DEFAULT_DATE_TIME_FORMAT)
+            .with(ZonedDateTime.class, (worksheet, row, column, value) -> worksheet.value(row, column, value),
+                    DEFAULT_DATE_TIME_FORMAT)
+            .with(Date.class, (worksheet, row, column, value) -> worksheet.value(row, column, value),
+                    DEFAULT_DATE_TIME_FORMAT);
+
+    private final Map<Class<?>, Registration<?>> registrations;
+
+    private FastExcelValueWriters(@NonNull Map<Class<?>, Registration<?>> registrations) {
+        this.registrations = registrations;
+    }
+
+    /**
+     * @return writers of strings, numbers, booleans and dates, which are supported by fastexcel natively
+     */
+    @NonNull
+    public static FastExcelValueWriters defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return copy of registry with writer of type (and its subtypes)
+     */
+    @NonNull
+    public <T> FastExcelValueWriters with(@NonNull Class<T> type, @NonNull FastExcelValueWriter<? super T> writer) {
+        return with(type, writer, "");
+    }
+
+    /**
+     * @param cellFormat format of cells, which is used if {@link ExcelCellStyleInfo#cellFormat()} is not set
+     * @return copy of registry with writer of type (and its subtypes)
+     */
+    @NonNull
+    public <T> FastExcelValueWriters with(@NonNull Class<T> type, @NonNull FastExcelValueWriter<? super T> writer,
+                                          @NonNull String cellFormat) {
+        var copy = new LinkedHashMap<>(this.registrations);
+        copy.put(Primitives.wrap(type), new Registration<>(writer, cellFormat));
+        return new FastExcelValueWriters(copy);
+    }
+
+    /**
+     * @param type declared type of values
+     * @return writer of the closest registered supertype
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    Registration<Object> resolve(@NonNull Class<?> type) {
+        for (var superType : TypeToken.of(Primitives.wrap(type)).getTypes().rawTypes()) {
+            var registration = this.registrations.get(superType);
+            if (registration != null) return (Registration<Object>) registration;
+        }
+        return TO_STRING;
+    }
+
+    /**
+     * @return whether registration writes numbers and booleans to worksheet as they are,
+     * so primitives could be written without calling writer
+     */
+    static boolean isNative(@NonNull Registration<?> registration) {
+        return registration.writer() == NUMBER_WRITER || registration.writer() == BOOLEAN_WRITER;
+    }
+
+    /**
+     * @param cellFormat default format of cells written by writer
+     */
+    record Registration<T>(@NonNull FastExcelValueWriter<? super T> writer, @NonNull String cellFormat) {
+    }
+}
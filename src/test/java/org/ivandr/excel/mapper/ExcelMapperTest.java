@@ -1,28 +1,56 @@
 package org.ivandr.excel.mapper;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.*;
 import org.checkerframework.checker.units.qual.N;
 import org.dhatim.fastexcel.Workbook;
 import org.dhatim.fastexcel.Worksheet;
+import org.dhatim.fastexcel.reader.CellType;
+import org.dhatim.fastexcel.reader.ReadableWorkbook;
+import org.dhatim.fastexcel.reader.Row;
+import org.dhatim.fastexcel.reader.Sheet;
 import org.instancio.Instancio;
 import org.instancio.settings.Keys;
 import org.instancio.settings.Settings;
+import org.ivandr.Job;
 import org.ivandr.Main;
 import org.ivandr.Person;
 import org.ivandr.excel.annotations.ExcelExportObject;
+import org.ivandr.excel.basics.ExcelTableExtent;
+import org.ivandr.excel.mapper.fastexcel.FastExcelExportRecorder;
+import org.ivandr.excel.mapper.fastexcel.FastExcelLayoutMode;
 import org.ivandr.excel.mapper.fastexcel.FastExcelMapperFactory;
+import org.ivandr.excel.mapper.fastexcel.FastExcelParallelExporter;
+import org.ivandr.excel.mapper.fastexcel.FastExcelPrefetch;
+import org.ivandr.excel.mapper.fastexcel.FastExcelProjection;
+import org.ivandr.excel.mapper.fastexcel.FastExcelRollover;
+import org.ivandr.excel.mapper.fastexcel.FastExcelValueWriters;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,16 +158,312 @@ class ExcelMapperTest {
         }
     }
 
+    @Test
+    @SneakyThrows
+    void mapEachObjectToExcelSheetWithFlushes() {
+        var objects = Instancio.ofList(SimpleClass.class).size(500).create();
+        var file = getOutputFile("streamed_simple_objects");
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            var ws = wb.newWorksheet(SimpleClass.class.getSimpleName());
+            try (var writer = mapper.openSheetWriter(ws, 4, 4, 7)) {
+                objects.forEach(writer::append);
+                assertEquals(4 + 1 + objects.size(), writer.getNextRow());
+            }
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var rows = wb.getFirstSheet().read();
+            assertEquals(1 + objects.size(), rows.size());
+            assertEquals("Name", rows.get(0).getCellText(4));
+            for (int i = 0; i < objects.size(); i++) {
+                assertEquals(objects.get(i).getName(), rows.get(i + 1).getCellText(4));
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapEachRecursiveObjectToExcelSheet() {
+        var people = Instancio.of(Main.People.class)
+                .withSettings(Settings.defaults()
+                        .set(Keys.MAX_DEPTH, 10)
+                        .set(Keys.COLLECTION_MIN_SIZE, 10)
+                        .set(Keys.COLLECTION_MAX_SIZE, 30))
+                .lenient().create();
+        var file = getOutputFile("streamed_people");
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            var ws = wb.newWorksheet(Person.class.getSimpleName());
+            mapper.mapEachToExcelSheet(ws, 0, 0, people.getPeople().stream());
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var rows = wb.getFirstSheet().read();
+            assertTrue(rows.size() > people.getPeople().size());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void flushWriterInTheMiddleOfObject() {
+        var objects = Instancio.ofList(SimpleClassWithList.class)
+                .size(3)
+                .withSettings(Settings.defaults()
+                        .set(Keys.COLLECTION_MIN_SIZE, 5)
+                        .set(Keys.COLLECTION_MAX_SIZE, 10))
+                .withSeed(7)
+                .create();
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+
+        var flushed = new ByteArrayOutputStream();
+        var wb = new Workbook(flushed, getClass().getName(), "0.1");
+        // each object takes at least 5 rows, so worksheet is flushed inside of objects
+        try (var writer = mapper.openSheetWriter(wb.newWorksheet("flushed"), 0, 0, 2)) {
+            objects.forEach(writer::append);
+        }
+        wb.finish();
+
+        var buffered = new ByteArrayOutputStream();
+        wb = new Workbook(buffered, getClass().getName(), "0.1");
+        mapper.mapEachToExcelSheet(wb.newWorksheet("buffered"), 0, 0, objects.iterator());
+        wb.finish();
+
+        var rows = readRowsAsText(new ByteArrayInputStream(flushed.toByteArray()));
+        assertTrue(rows.size() > 1 + 5 * objects.size());
+        assertEquals(readRowsAsText(new ByteArrayInputStream(buffered.toByteArray())), rows);
+    }
+
+    @Test
+    @SneakyThrows
+    void styleValuesByBlocksOfCells() {
+        var objects = Instancio.ofList(SimpleClassWithList.class)
+                .size(4)
+                .withSettings(Settings.defaults()
+                        .set(Keys.COLLECTION_MIN_SIZE, 1)
+                        .set(Keys.COLLECTION_MAX_SIZE, 4))
+                .withSeed(11)
+                .create();
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+
+        var buffered = new ByteArrayOutputStream();
+        var wb = new Workbook(buffered, getClass().getName(), "0.1");
+        mapper.mapEachToExcelSheet(wb.newWorksheet("table"), 0, 0, objects.iterator());
+        wb.finish();
+
+        var flushed = new ByteArrayOutputStream();
+        wb = new Workbook(flushed, getClass().getName(), "0.1");
+        try (var writer = mapper.openSheetWriter(wb.newWorksheet("table"), 0, 0, 1)) {
+            objects.forEach(writer::append);
+        }
+        wb.finish();
+
+        var chunked = new ByteArrayOutputStream();
+        wb = new Workbook(chunked, getClass().getName(), "0.1");
+        new FastExcelParallelExporter<>(mapper, Runnable::run)
+                .mapChunksToWorksheet(wb.newWorksheet("table"), 0, 0, objects, 3, 1);
+        wb.finish();
+
+        var styles = readCellStyles(buffered.toByteArray());
+        assertEquals(styles, readCellStyles(flushed.toByteArray()));
+        assertEquals(styles, readCellStyles(chunked.toByteArray()));
+
+        // each cell of value column (covered cells of merged regions too) has style of its column
+        var columnStyles = new HashMap<String, String>();
+        for (var cell : styles.entrySet()) {
+            var column = cell.getKey().replaceAll("\\d", "");
+            int row = Integer.parseInt(cell.getKey().replaceAll("\\D", ""));
+            if (row <= mapper.getHeaderHeight()) continue;
+            assertEquals(columnStyles.computeIfAbsent(column, c -> cell.getValue()), cell.getValue());
+        }
+        assertEquals(7, columnStyles.size());
+        assertTrue(styles.size() > mapper.getHeaderHeight() * 7 + 4 * 7);
+    }
+
+    @Test
+    @SneakyThrows
+    void mapValuesUnderTheirHeaders() {
+        var person = new Person("John", "Doe", LocalDate.of(1990, 1, 1), List.of(), List.of());
+        var file = getOutputFile("values_under_headers");
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            mapper.mapToExcelSheet(wb.newWorksheet(Person.class.getSimpleName()), 0, 0, person);
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var rows = wb.getFirstSheet().read();
+            var headers = rows.get(0);
+            var values = rows.stream()
+                    .filter(r -> r.getRowNum() == mapper.getHeaderHeight() + 1)
+                    .findFirst().orElseThrow();
+
+            var expected = Map.of(
+                    "First Name", person.getName(),
+                    "Last name", person.getSurname(),
+                    "Age", String.valueOf(person.getAge())
+            );
+            for (int column = 0; column < headers.getCellCount(); column++) {
+                var header = headers.getCellText(column);
+                if (expected.containsKey(header)) {
+                    assertEquals(expected.get(header), values.getCellText(column), header);
+                }
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapDifferentClassesToOneWorkbook() {
+        var object = Instancio.create(SimpleClass.class);
+        var objectWithList = Instancio.create(SimpleClassWithList.class);
+        var file = getOutputFile("shared_workbook_styles");
+        var factory = new FastExcelMapperFactory();
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            factory.createExcelMapperForClass(SimpleClass.class)
+                    .mapToExcelSheet(wb.newWorksheet("first"), 0, 0, object);
+            factory.createExcelMapperForClass(SimpleClassWithList.class)
+                    .mapToExcelSheet(wb.newWorksheet("second"), 2, 2, objectWithList);
+            factory.createExcelMapperForClass(SimpleClass.class)
+                    .mapToExcelSheet(wb.newWorksheet("third"), 0, 0, object);
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var sheets = wb.getSheets().toList();
+            assertEquals(3, sheets.size());
+            assertEquals(object.getName(), sheets.get(0).read().get(1).getCellText(0));
+            assertEquals(object.getName(), sheets.get(2).read().get(1).getCellText(0));
+            assertEquals(objectWithList.getName(), sheets.get(1).read().get(1).getCellText(2));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapValuesWithTheirTypes() {
+        var object = Instancio.create(SimpleClass.class);
+        var file = getOutputFile("typed_values");
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class)
+                    .mapToExcelSheet(wb.newWorksheet(SimpleClass.class.getSimpleName()), 0, 0, object);
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var values = wb.getFirstSheet().read().get(1);
+            assertEquals(CellType.STRING, values.getCell(0).getType());
+            assertEquals(object.getName(), values.getCell(0).asString());
+            assertEquals(CellType.NUMBER, values.getCell(1).getType());
+            assertEquals(object.getNumber().intValue(), values.getCell(1).asNumber().intValueExact());
+            assertEquals(CellType.NUMBER, values.getCell(2).getType());
+            assertEquals(object.getDecimal(), values.getCell(2).asNumber().doubleValue());
+            assertEquals(object.getDate(), values.getCell(3).asDate().toLocalDate());
+            assertEquals(CellType.STRING, values.getCell(4).getType());
+            assertEquals(object.getSimpleEnum().toString(), values.getCell(4).asString());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapValuesWithCustomWriter() {
+        var object = Instancio.create(SimpleClass.class);
+        var file = getOutputFile("custom_value_writer");
+        var writers = FastExcelValueWriters.defaults()
+                .with(SimpleEnum.class, (worksheet, row, column, value) -> worksheet.value(row, column, value.ordinal()));
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            new FastExcelMapperFactory(writers).createExcelMapperForClass(SimpleClass.class)
+                    .mapToExcelSheet(wb.newWorksheet(SimpleClass.class.getSimpleName()), 0, 0, object);
+            wb.finish();
+        }
+
+        try (var wb = new ReadableWorkbook(file)) {
+            var values = wb.getFirstSheet().read().get(1);
+            assertEquals(CellType.NUMBER, values.getCell(4).getType());
+            assertEquals(object.getSimpleEnum().ordinal(), values.getCell(4).asNumber().intValueExact());
+        }
+    }
+
+    @Test
+    void createdMappersAreCached() {
+        var factory = new FastExcelMapperFactory();
+        assertSame(factory.createExcelMapperForClass(Person.class), factory.createExcelMapperForClass(Person.class));
+
+        var boundedFactory = FastExcelMapperFactory.builder().maximumCachedMappers(1L).build();
+        var personMapper = boundedFactory.createExcelMapperForClass(Person.class);
+        assertSame(personMapper, boundedFactory.createExcelMapperForClass(Person.class));
+        boundedFactory.createExcelMapperForClass(SimpleClass.class);
+        assertNotSame(personMapper, boundedFactory.createExcelMapperForClass(Person.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void mapWithSharedMapperConcurrently() {
+        var people = Instancio.of(Main.People.class)
+                .withSettings(Settings.defaults()
+                        .set(Keys.MAX_DEPTH, 10)
+                        .set(Keys.COLLECTION_MIN_SIZE, 5)
+                        .set(Keys.COLLECTION_MAX_SIZE, 10))
+                .lenient().create();
+        var factory = new FastExcelMapperFactory();
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var exports = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < 16; i++) {
+                exports.add(executor.submit(() -> {
+                    var os = new ByteArrayOutputStream();
+                    var wb = new Workbook(os, getClass().getName(), "0.1");
+                    factory.createExcelMapperForClass(Main.People.class)
+                            .mapToExcelSheet(wb.newWorksheet("people"), 0, 0, people);
+                    wb.finish();
+                    return readRowsAsText(new ByteArrayInputStream(os.toByteArray()));
+                }));
+            }
+
+            var expected = exports.get(0).get();
+            assertFalse(expected.isEmpty());
+            for (var export : exports) {
+                assertEquals(expected, export.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @SneakyThrows
+    private List<String> readRowsAsText(@NonNull InputStream inputStream) {
+        try (var wb = new ReadableWorkbook(inputStream)) {
+            return wb.getFirstSheet().read().stream().map(Row::toString).toList();
+        }
+    }
+
+    @SneakyThrows
+    private File getOutputFile(@NonNull String excelFileName) {
+        var resource = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource(".")).toURI());
+        Path filePath = Paths.get("%s/%s.xlsx".formatted(resource.toAbsolutePath(), excelFileName));
+        return filePath.toFile();
+    }
+
     @SneakyThrows
     private <T> Workbook createAndWriteWorkbook(
             Class<T> clazz,
             T value,
             @NonNull String excelFileName
     ) {
-        var resource = Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource(".")).toURI());
-        Path filePath = Paths.get("%s/%s.xlsx".formatted(resource.toAbsolutePath(), excelFileName));
-
-        var file = filePath.toFile();
+        var file = getOutputFile(excelFileName);
 
         var factory = new FastExcelMapperFactory();
         var mapper = factory.createExcelMapperForClass(clazz);
@@ -156,6 +480,747 @@ class ExcelMapperTest {
         return wb;
     }
 
+    @Test
+    @SneakyThrows
+    void mapChunksToWorkbookInParallel() {
+        var objects = Instancio.ofList(SimpleClass.class).size(50).create();
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+        var os = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            new FastExcelParallelExporter<>(mapper, executor)
+                    .mapChunksToWorkbook(wb, objects, 15, chunk -> "Chunk " + chunk);
+            wb.finish();
+        } finally {
+            executor.shutdown();
+        }
+
+        try (var wb = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var sheets = wb.getSheets().toList();
+            assertEquals(List.of("Chunk 0", "Chunk 1", "Chunk 2", "Chunk 3"),
+                    sheets.stream().map(Sheet::getName).toList());
+            for (int i = 0; i < sheets.size(); i++) {
+                var rows = sheets.get(i).read();
+                var chunk = objects.subList(i * 15, Math.min(objects.size(), (i + 1) * 15));
+                assertEquals(mapper.getHeaderHeight() + chunk.size(), rows.size());
+                for (int j = 0; j < chunk.size(); j++) {
+                    assertEquals(chunk.get(j).getName(), rows.get(mapper.getHeaderHeight() + j).getCellText(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectChunkExceedingRowsOfWorksheet() {
+        // one object, whose collection takes all rows of worksheet, does not fit below header
+        var object = new SimpleClassWithList("huge", 1, 1.0, LocalDate.of(2024, 1, 1), SimpleEnum.VARIANT_A, 0,
+                Collections.nCopies(Worksheet.MAX_ROWS, 1), List.of("a"));
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+        var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> new FastExcelParallelExporter<>(mapper,
+                Runnable::run).mapChunksToWorkbook(wb, List.of(object), 10, chunk -> "Chunk " + chunk));
+        assertTrue(exception.getMessage().contains("Chunk 0"));
+    }
+
+    @Test
+    @SneakyThrows
+    void mapGroupsToWorkbookInParallel() {
+        var objects = Instancio.ofList(SimpleClass.class).size(30).create();
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+        var os = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var wb = new Workbook(os, getClass().getName(), "0.1");
+            new FastExcelParallelExporter<>(mapper, executor)
+                    .mapGroupsToWorkbook(wb, objects, o -> o.getSimpleEnum().name());
+            wb.finish();
+        } finally {
+            executor.shutdown();
+        }
+
+        try (var wb = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            for (var sheet : wb.getSheets().toList()) {
+                var expected = objects.stream()
+                        .filter(o -> o.getSimpleEnum().name().equals(sheet.getName()))
+                        .map(SimpleClass::getName)
+                        .toList();
+                var actual = sheet.read().stream()
+                        .skip(mapper.getHeaderHeight())
+                        .map(row -> row.getCellText(0))
+                        .toList();
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void importExportedObjects() {
+        var orders = List.of(
+                new ImportedOrder("A-1", 3, 10.5, LocalDate.of(2024, 1, 2), SimpleEnum.VARIANT_B,
+                        new ImportedCustomer("Customer", true),
+                        List.of(new ImportedLine("Pen", 2, List.of("blue", "red")),
+                                new ImportedLine("Paper", 10, List.of()),
+                                new ImportedLine("Ink", 1, List.of("black"))),
+                        List.of("urgent")),
+                new ImportedOrder("A-2", null, 0.0, null, null, null, List.of(), List.of()),
+                new ImportedOrder("A-3", 1, 1.0, LocalDate.of(2024, 3, 4), SimpleEnum.VARIANT_A,
+                        new ImportedCustomer(null, false),
+                        List.of(new ImportedLine("Pen", 5, List.of("green"))),
+                        List.of("a", "b", "c", "d")));
+        var factory = new FastExcelMapperFactory();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        factory.createExcelMapperForClass(ImportedOrder.class)
+                .mapEachToExcelSheet(wb.newWorksheet("orders"), 2, 1, orders.iterator());
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()));
+             var imported = factory.createExcelImporterForClass(ImportedOrder.class)
+                     .mapFromExcelSheet(readable.getFirstSheet(), 2, 1)) {
+            assertEquals(orders, imported.toList());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void raggedLayoutTakesOnlyRequiredRows() {
+        var order = new ImportedOrder("A-1", 3, 10.5, LocalDate.of(2024, 1, 2), SimpleEnum.VARIANT_B,
+                new ImportedCustomer("Customer", true),
+                List.of(new ImportedLine("Pen", 2, List.of("blue", "red", "green")),
+                        new ImportedLine("Paper", 10, List.of()),
+                        new ImportedLine("Ink", 1, List.of("black"))),
+                List.of("urgent"));
+        var orders = List.of(order, new ImportedOrder("A-2", null, 0.0, null, null, null, List.of(), List.of()));
+
+        var rectangular = new FastExcelMapperFactory();
+        var ragged = FastExcelMapperFactory.builder().layoutMode(FastExcelLayoutMode.RAGGED).build();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        var rectangularSheet = wb.newWorksheet("rectangular");
+        rectangular.createExcelMapperForClass(ImportedOrder.class)
+                .mapEachToExcelSheet(rectangularSheet, 0, 0, orders.iterator());
+        // flushed worksheet keeps zip entry open until it is finished
+        rectangularSheet.finish();
+        ragged.createExcelMapperForClass(ImportedOrder.class)
+                .mapEachToExcelSheet(wb.newWorksheet("ragged"), 0, 0, orders.iterator());
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var sheets = readable.getSheets().toList();
+            int headerHeight = rectangular.createExcelMapperForClass(ImportedOrder.class).getHeaderHeight();
+            // 3 lines by 3 colors against 3 + 1 + 1 colors, the second order takes one row
+            assertEquals(headerHeight + 9 + 1, sheets.get(0).read().size());
+            assertEquals(headerHeight + 5 + 1, sheets.get(1).read().size());
+
+            try (var imported = ragged.createExcelImporterForClass(ImportedOrder.class)
+                    .mapFromExcelSheet(sheets.get(1), 0, 0)) {
+                assertEquals(orders, imported.toList());
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapProjectedColumns() {
+        var jobs = List.of(
+                new Job("Company A", "Developer", null, LocalDate.of(2020, 1, 1), null),
+                new Job("Company B", "Lead", null, LocalDate.of(2022, 1, 1), null));
+        var person = new Person("John", "Doe", LocalDate.of(1990, 1, 1), List.of(), jobs);
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        mapper.project(FastExcelProjection.ofHeaderPaths(List.of("First Name"), List.of("Jobs", "Company name")))
+                .mapToExcelSheet(wb.newWorksheet("projected"), 0, 0, person);
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var rows = readable.getFirstSheet().read();
+            assertEquals(2 + jobs.size(), rows.size());
+            assertEquals("First Name", rows.get(0).getCellText(0));
+            assertEquals("Jobs", rows.get(0).getCellText(1));
+            assertEquals("Company name", rows.get(1).getCellText(1));
+            assertEquals(2, rows.get(1).getCellCount());
+            assertEquals("John", rows.get(2).getCellText(0));
+            assertEquals("Company A", rows.get(2).getCellText(1));
+            assertEquals("Company B", rows.get(3).getCellText(1));
+        }
+        // cached mapper is not changed by projection
+        assertTrue(mapper.getLeaves().size() > 2);
+    }
+
+    @Test
+    void projectionPrunesGetters() {
+        var favourite = new CountedChild("f");
+        var parent = new CountedParent("parent", List.of(new CountedChild("a")), favourite);
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(CountedParent.class)
+                .project(FastExcelProjection.of(path -> !path.get(0).equals("Favourite")));
+        var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+        mapper.mapToExcelSheet(wb.newWorksheet("counted"), 0, 0, parent);
+
+        assertEquals(2, mapper.getLeaves().size());
+        assertEquals(2, parent.invocations);
+        assertEquals(0, favourite.invocations);
+        assertThrows(IllegalArgumentException.class,
+                () -> mapper.project(FastExcelProjection.ofHeaderPaths(List.of("Unknown"))));
+    }
+
+    @Test
+    void rejectCyclicMappingWithoutBounds() {
+        var factory = new FastExcelMapperFactory();
+        var exception = assertThrows(IllegalStateException.class,
+                () -> factory.createExcelMapperForClass(TreeItem.class));
+        assertTrue(exception.getMessage().contains("TreeItem -> TreeItem"));
+    }
+
+    @Test
+    @SneakyThrows
+    void boundCyclicMappingByDepth() {
+        var tree = new TreeItem("root", List.of(
+                new TreeItem("first", List.of(new TreeItem("deep", List.of()))),
+                new TreeItem("second", null)));
+        var byType = FastExcelMapperFactory.builder().maximumTypeDepth(TreeItem.class, 2).build()
+                .createExcelMapperForClass(TreeItem.class);
+        var byHeight = FastExcelMapperFactory.builder().maximumDepth(2).build()
+                .createExcelMapperForClass(TreeItem.class);
+
+        // root, its children and children of children as values
+        assertEquals(2, byType.getHeaderHeight());
+        assertEquals(2, byHeight.getHeaderHeight());
+        assertEquals(3, byType.getLeaves().size());
+        assertEquals(3, byHeight.getLeaves().size());
+
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        byType.mapToExcelSheet(wb.newWorksheet("tree"), 0, 0, tree);
+        wb.finish();
+
+        var rows = readRowsAsText(new ByteArrayInputStream(os.toByteArray()));
+        // two rows of headers, each child of root takes one row (grandchildren are values)
+        assertEquals(2 + 2, rows.size());
+        assertTrue(rows.get(2).contains("first"));
+        assertTrue(rows.get(2).contains("deep"));
+        assertTrue(rows.get(3).contains("second"));
+    }
+
+    @Test
+    @SneakyThrows
+    void importChecksHeaders() {
+        var factory = new FastExcelMapperFactory();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        factory.createExcelMapperForClass(SimpleClass.class)
+                .mapToExcelSheet(wb.newWorksheet("simple"), 0, 0, Instancio.create(SimpleClass.class));
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var importer = factory.createExcelImporterForClass(ImportedOrder.class);
+            assertThrows(IllegalArgumentException.class,
+                    () -> importer.mapFromExcelSheet(readable.getFirstSheet(), 0, 0));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapIterablesAndArraysWithoutCopying() {
+        var tags = List.of("a", "b");
+        var codes = new int[]{7, 8, 9};
+        var value = new Sequences(tags, () -> List.of(1L, 2L).iterator(), codes, new String[0]);
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        new FastExcelMapperFactory().createExcelMapperForClass(Sequences.class)
+                .mapToExcelSheet(wb.newWorksheet("sequences"), 0, 0, value);
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var rows = readable.getFirstSheet().read();
+            // header and 3 rows of the longest collection (codes)
+            assertEquals(4, rows.size());
+            assertEquals("a", rows.get(1).getCellText(0));
+            assertEquals("", rows.get(3).getCellText(0));
+            assertEquals("2", rows.get(2).getCellText(1));
+            assertEquals("9", rows.get(3).getCellText(2));
+            assertEquals("", rows.get(1).getCellText(3));
+        }
+        // immutable collections could be exported, arrays are neither copied nor padded
+        assertEquals(List.of("a", "b"), tags);
+        assertArrayEquals(new int[]{7, 8, 9}, codes);
+    }
+
+    @Test
+    @SneakyThrows
+    void importArrays() {
+        var value = new Sequences(List.of("a"), null, new int[]{1, 2}, new String[]{"x", "y", "z"});
+        var factory = new FastExcelMapperFactory();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        factory.createExcelMapperForClass(Sequences.class)
+                .mapToExcelSheet(wb.newWorksheet("sequences"), 0, 0, value);
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()));
+             var imported = factory.createExcelImporterForClass(Sequences.class)
+                     .mapFromExcelSheet(readable.getFirstSheet(), 0, 0)) {
+            var sequence = imported.findFirst().orElseThrow();
+            assertEquals(List.of("a"), sequence.tags());
+            assertArrayEquals(new int[]{1, 2}, sequence.codes());
+            assertArrayEquals(new String[]{"x", "y", "z"}, sequence.labels());
+        }
+    }
+
+    @Test
+    void mapInvokesEachGetterOncePerObject() {
+        var children = List.of(new CountedChild("a"), new CountedChild("b"), new CountedChild("c"));
+        var favourite = new CountedChild("f");
+        var parent = new CountedParent("parent", children, favourite);
+        var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+        new FastExcelMapperFactory().createExcelMapperForClass(CountedParent.class)
+                .mapToExcelSheet(wb.newWorksheet("counted"), 0, 0, parent);
+
+        assertEquals(3, parent.invocations);
+        assertEquals(1, favourite.invocations);
+        for (var child : children) {
+            assertEquals(1, child.invocations);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapPrimitivesWithoutBoxingUnlessWriterIsCustom() {
+        var value = new Primitives(42, 1L << 40, 0.25, true, (short) -3);
+        var writers = FastExcelValueWriters.defaults()
+                .with(Long.class, (worksheet, row, column, number) -> worksheet.value(row, column, "#" + number));
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        var mapper = new FastExcelMapperFactory(writers).createExcelMapperForClass(Primitives.class);
+        mapper.mapToExcelSheet(wb.newWorksheet("primitives"), 0, 0, value);
+        mapper.project(FastExcelProjection.ofHeaderPaths(List.of("Ratio"), List.of("Valid")))
+                .mapToExcelSheet(wb.newWorksheet("projected"), 0, 0, value);
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var sheets = readable.getSheets().toList();
+            var values = sheets.get(0).read().get(1);
+            assertEquals(42, values.getCell(0).asNumber().intValueExact());
+            // custom writer of wrapper gets boxed primitive
+            assertEquals("#" + (1L << 40), values.getCell(1).asString());
+            assertEquals(0.25, values.getCell(2).asNumber().doubleValue());
+            assertEquals(CellType.BOOLEAN, values.getCell(3).getType());
+            assertEquals(true, values.getCell(3).asBoolean());
+            assertEquals(-3, values.getCell(4).asNumber().intValueExact());
+
+            var projected = sheets.get(1).read().get(1);
+            assertEquals(0.25, projected.getCell(0).asNumber().doubleValue());
+            assertEquals(true, projected.getCell(1).asBoolean());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapAndImportAnnotatedFields() {
+        var value = new FieldMapped();
+        value.name = "fields";
+        value.count = 3;
+        value.tags = new ArrayList<>(List.of("x", "y"));
+        var factory = new FastExcelMapperFactory();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        factory.createExcelMapperForClass(FieldMapped.class).mapToExcelSheet(wb.newWorksheet("fields"), 0, 0, value);
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()));
+             var imported = factory.createExcelImporterForClass(FieldMapped.class)
+                     .mapFromExcelSheet(readable.getFirstSheet(), 0, 0)) {
+            var rows = readable.getFirstSheet().read();
+            assertEquals("Name", rows.get(0).getCellText(0));
+            assertEquals("3", rows.get(1).getCellText(1));
+            assertEquals("y", rows.get(2).getCellText(2));
+
+            var object = imported.findFirst().orElseThrow();
+            assertEquals("fields", object.name);
+            assertEquals(3, object.count);
+            assertEquals(List.of("x", "y"), object.tags);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void prefetchAssociationsInBatches() {
+        var store = new LazyStore();
+        var owners = new ArrayList<LazyOwner>();
+        for (int i = 0; i < 5; i++) {
+            store.items.put("owner" + i, List.of("item" + i, "other" + i));
+            owners.add(new LazyOwner("owner" + i, store));
+        }
+        var batches = new ArrayList<Integer>();
+        var prefetch = FastExcelPrefetch.builder()
+                .batchSize(2)
+                .loader(List.of("Items"), batch -> {
+                    batches.add(batch.size());
+                    batch.forEach(owner -> ((LazyOwner) owner).loaded = store.items.get(((LazyOwner) owner).name));
+                })
+                .build();
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        new FastExcelMapperFactory().createExcelMapperForClass(LazyOwner.class)
+                .withPrefetch(prefetch)
+                .mapEachToExcelSheet(wb.newWorksheet("lazy"), 0, 0, owners.iterator());
+        wb.finish();
+
+        assertEquals(List.of(2, 2, 1), batches);
+        assertEquals(0, store.lazyLoads);
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var rows = readable.getFirstSheet().read();
+            assertEquals(1 + 5 * 2, rows.size());
+            assertEquals("other4", rows.get(10).getCellText(1));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void stackTablesAndReturnTheirExtents() {
+        var first = new SimpleClassWithList("first", 1, 1.0, LocalDate.of(2024, 1, 1), SimpleEnum.VARIANT_A, 0,
+                List.of(1, 2, 3), List.of("a", "b"));
+        var second = new SimpleClassWithList("second", 2, 2.0, LocalDate.of(2024, 1, 2), SimpleEnum.VARIANT_B, 0,
+                List.of(4), List.of("c"));
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+        var worksheet = wb.newWorksheet("tables");
+        var extents = mapper.mapAll(worksheet, 0, 1, List.of(first, second), 1);
+        var single = mapper.mapToExcelSheet(worksheet, extents.get(1).nextRow(), 0, second);
+        wb.finish();
+
+        assertEquals(List.of(new ExcelTableExtent(0, 1, 4, 7), new ExcelTableExtent(5, 1, 2, 7)), extents);
+        assertEquals(new ExcelTableExtent(7, 0, 2, 7), single);
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            // empty rows are not read, so rows are looked up by their numbers
+            var rows = new HashMap<Integer, Row>();
+            readable.getFirstSheet().read().forEach(row -> rows.put(row.getRowNum() - 1, row));
+            assertEquals("Name", rows.get(0).getCellText(1));
+            assertFalse(rows.containsKey(4));
+            assertEquals("Name", rows.get(5).getCellText(1));
+            assertEquals("second", rows.get(6).getCellText(1));
+            assertEquals("second", rows.get(8).getCellText(0));
+        }
+        assertThrows(IllegalArgumentException.class, () -> mapper.mapAll(worksheet, 0, 0, List.of(first), -1));
+    }
+
+    @Test
+    @SneakyThrows
+    void stampHeaderAtAnyPosition() {
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(Person.class);
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        var table = mapper.mapToExcelSheet(wb.newWorksheet("table"), 0, 0, null);
+        var stamped = wb.newWorksheet("stamped");
+        var first = mapper.stampHeader(stamped, 0, 0);
+        var second = mapper.stampHeader(stamped, first.nextRow() + 2, 3);
+        wb.finish();
+
+        assertEquals(new ExcelTableExtent(0, 0, mapper.getHeaderHeight(), table.columns()), first);
+        assertEquals(new ExcelTableExtent(first.nextRow() + 2, 3, mapper.getHeaderHeight(), table.columns()), second);
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var sheets = readable.getSheets().toList();
+            var tableRows = sheets.get(0).read();
+            // empty rows are not read, so rows are looked up by their numbers
+            var stampedRows = new HashMap<Integer, Row>();
+            sheets.get(1).read().forEach(row -> stampedRows.put(row.getRowNum() - 1, row));
+            for (int row = 0; row < mapper.getHeaderHeight(); row++) {
+                for (int column = 0; column < table.columns(); column++) {
+                    assertEquals(tableRows.get(row).getCellText(column), stampedRows.get(row).getCellText(column));
+                    assertEquals(tableRows.get(row).getCellText(column),
+                            stampedRows.get(second.row() + row).getCellText(second.column() + column));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return style index of each cell of the first worksheet by its reference (e.g. "B3")
+     */
+    @SneakyThrows
+    private static Map<String, String> readCellStyles(byte[] workbook) {
+        // entries of streamed workbook have sizes only after their data, so workbook is read as file
+        var file = Files.createTempFile("excel-mapper", ".xlsx");
+        try (var zip = new ZipFile(Files.write(file, workbook).toFile())) {
+            var sheet = new String(zip.getInputStream(zip.getEntry("xl/worksheets/sheet1.xml")).readAllBytes(),
+                    StandardCharsets.UTF_8);
+            var styles = new HashMap<String, String>();
+            var matcher = Pattern.compile("<c r=\"([A-Z]+\\d+)\"[^>]*? s=\"(\\d+)\"").matcher(sheet);
+            while (matcher.find()) styles.put(matcher.group(1), matcher.group(2));
+            return styles;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void recordExportPhases() {
+        var recorder = new FastExcelExportRecorder();
+        var factory = FastExcelMapperFactory.builder().listener(recorder).build();
+        var objects = List.of(
+                new SimpleClassWithList("first", 1, 1.0, LocalDate.of(2024, 1, 1), SimpleEnum.VARIANT_A, 0,
+                        List.of(1, 2, 3), List.of("a", "b")),
+                new SimpleClassWithList("second", 2, 2.0, LocalDate.of(2024, 1, 2), SimpleEnum.VARIANT_B, 0,
+                        List.of(4), List.of("c")));
+        var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+        factory.createExcelMapperForClass(SimpleClassWithList.class)
+                .mapEachToExcelSheet(wb.newWorksheet("recorded"), 0, 0, objects.iterator());
+
+        assertEquals(1, recorder.getMappersCreated());
+        assertEquals(2, recorder.getGetterInvocations(List.of("Name")));
+        assertEquals(2, recorder.getGetterInvocations(List.of("Integers")));
+        assertEquals(0, recorder.getGetterInvocations(List.of("Unknown")));
+        assertEquals(2, recorder.getObjects());
+        assertEquals(3 + 1, recorder.getRows());
+        // 5 values merged over 3 rows and 2 merged over 1 row, integers and strings padded to 3 rows
+        assertEquals(5 + 3 + 3 + 5 + 1 + 1, recorder.getCells());
+        assertEquals(5, recorder.getMergedRegions());
+        assertEquals(7 * 4, recorder.getStyledCells());
+        assertTrue(recorder.getStyleResolutions() > 0);
+        assertEquals(1, recorder.getFlushes());
+
+        // mapper of factory without listener reports to listener set later
+        var later = new FastExcelExportRecorder();
+        new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class)
+                .withListener(later)
+                .mapToExcelSheet(wb.newWorksheet("later"), 0, 0, objects.get(1));
+        assertEquals(0, later.getMappersCreated());
+        assertEquals(1, later.getObjects());
+        assertEquals(1, later.getGetterInvocations(List.of("Strings")));
+
+        // chunks report each of their objects and flush after each chunk
+        var chunked = new FastExcelExportRecorder();
+        new FastExcelParallelExporter<>(factory.createExcelMapperForClass(SimpleClassWithList.class)
+                .withListener(chunked), Runnable::run)
+                .mapChunksToWorksheet(wb.newWorksheet("chunked"), 0, 0, objects, 1, 1);
+        assertEquals(recorder.getObjects(), chunked.getObjects());
+        assertEquals(recorder.getRows(), chunked.getRows());
+        assertEquals(recorder.getCells(), chunked.getCells());
+        assertEquals(recorder.getMergedRegions(), chunked.getMergedRegions());
+        assertEquals(recorder.getStyledCells(), chunked.getStyledCells());
+        assertEquals(2, chunked.getFlushes());
+    }
+
+    @Test
+    @SneakyThrows
+    void emitFlightRecorderEvents() {
+        var file = Files.createTempFile("excel-mapper", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable("org.ivandr.excel.MapperCreated");
+            recording.enable("org.ivandr.excel.Export");
+            recording.enable("org.ivandr.excel.Flush");
+            recording.start();
+
+            var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+            var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+            try (var writer = mapper.openSheetWriter(wb.newWorksheet("recorded"), 0, 0, 2)) {
+                for (int i = 0; i < 3; i++) {
+                    writer.append(Instancio.create(SimpleClass.class));
+                }
+            }
+            new FastExcelParallelExporter<>(mapper, Runnable::run).mapChunksToWorksheet(wb.newWorksheet("chunked"),
+                    0, 0, Instancio.ofList(SimpleClass.class).size(3).create(), 2, 1);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        var created = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.ivandr.excel.MapperCreated"))
+                .findFirst().orElseThrow();
+        assertEquals(SimpleClass.class.getName(), created.getClass("mappedClass").getName());
+        assertEquals(5, created.getInt("columns"));
+        var exports = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.ivandr.excel.Export"))
+                .toList();
+        assertEquals(List.of("recorded", "chunked"), exports.stream().map(event -> event.getString("worksheet")).toList());
+        for (var export : exports) {
+            assertEquals(3, export.getLong("objects"));
+            assertEquals(3, export.getLong("rows"));
+            assertEquals(15, export.getLong("cells"));
+        }
+        // header with the first object, the second and the third objects and nothing left on close,
+        // then each of two chunks
+        assertEquals(3 + 2, events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.ivandr.excel.Flush"))
+                .count());
+    }
+
+    @Test
+    @SneakyThrows
+    void exportPublishedObjectsInRequestedBatches() {
+        var objects = Instancio.ofList(SimpleClass.class).size(100).create();
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+        var os = new ByteArrayOutputStream();
+        var subscriber = mapper.subscriber(new Workbook(os, getClass().getName(), "0.1"), "published", 16, 10);
+        var requests = Collections.synchronizedList(new ArrayList<Long>());
+        var outstanding = new AtomicLong();
+
+        try (var publisher = new SubmissionPublisher<SimpleClass>()) {
+            publisher.subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                            requests.add(n);
+                            outstanding.addAndGet(n);
+                            subscription.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            subscription.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(SimpleClass item) {
+                    assertTrue(outstanding.decrementAndGet() >= 0);
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    subscriber.onComplete();
+                }
+            });
+            objects.forEach(publisher::submit);
+        }
+        subscriber.getCompletion().get(10, TimeUnit.SECONDS);
+
+        // the first batch and the next one after each of 6 complete batches
+        assertEquals(Collections.nCopies(1 + objects.size() / 16, 16L), requests);
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var rows = readable.getFirstSheet().read();
+            assertEquals("published", readable.getFirstSheet().getName());
+            assertEquals(1 + objects.size(), rows.size());
+            for (int i = 0; i < objects.size(); i++) {
+                assertEquals(objects.get(i).getName(), rows.get(i + 1).getCellText(0));
+            }
+        }
+    }
+
+    @Test
+    void failedPublisherCompletesExceptionally() {
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClass.class);
+        var subscriber = mapper.subscriber(new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1"),
+                "failed");
+        var publisher = new SubmissionPublisher<SimpleClass>();
+        publisher.subscribe(subscriber);
+        publisher.closeExceptionally(new IllegalStateException("source failed"));
+
+        var exception = assertThrows(ExecutionException.class,
+                () -> subscriber.getCompletion().get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    @SneakyThrows
+    void rollOverToNewSheetsWithoutSplittingObjects() {
+        var objects = new ArrayList<SimpleClassWithList>();
+        for (int i = 0; i < 7; i++) {
+            objects.add(new SimpleClassWithList("object" + i, i, 0.5, LocalDate.now(), SimpleEnum.VARIANT_A, 0,
+                    List.of(1, 2, 3), List.of("a")));
+        }
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+        var os = new ByteArrayOutputStream();
+        var wb = new Workbook(os, getClass().getName(), "0.1");
+        // header and three objects of three rows fill the sheet
+        var rollover = FastExcelRollover.builder().maxRowsPerSheet(11).build();
+        try (var writer = mapper.openSheetWriter(wb.newWorksheet("rolled"), 0, 0, 2, rollover)) {
+            objects.forEach(writer::append);
+            assertEquals(3, writer.getSheetCount());
+            assertEquals("rolled (3)", writer.getWorksheet().getName());
+            assertEquals(1 + 3, writer.getNextRow());
+        }
+        wb.finish();
+
+        try (var readable = new ReadableWorkbook(new ByteArrayInputStream(os.toByteArray()))) {
+            var sheets = readable.getSheets().toList();
+            assertEquals(List.of("rolled", "rolled (2)", "rolled (3)"), sheets.stream().map(Sheet::getName).toList());
+            var expectedObjects = List.of(3, 3, 1);
+            int object = 0;
+            for (int i = 0; i < sheets.size(); i++) {
+                var rows = sheets.get(i).read();
+                assertEquals(1 + expectedObjects.get(i) * 3, rows.size());
+                assertEquals("Name", rows.get(0).getCellText(0));
+                for (int j = 0; j < expectedObjects.get(i); j++) {
+                    assertEquals("object" + object++, rows.get(1 + j * 3).getCellText(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectObjectLargerThanSheet() {
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(SimpleClassWithList.class);
+        var wb = new Workbook(new ByteArrayOutputStream(), getClass().getName(), "0.1");
+        var rollover = FastExcelRollover.builder().maxRowsPerSheet(3).build();
+        try (var writer = mapper.openSheetWriter(wb.newWorksheet("small"), 0, 0, 2, rollover)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.append(new SimpleClassWithList(
+                    "large", 0, 0.5, LocalDate.now(), SimpleEnum.VARIANT_A, 0, List.of(1, 2, 3), List.of())));
+            assertEquals(1, writer.getSheetCount());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void mapChunksLaidOutInParallelToOneWorksheet() {
+        var objects = new ArrayList<PrimitiveBatch>();
+        for (int i = 0; i < 50; i++) {
+            var items = new ArrayList<Primitives>();
+            for (int j = 0; j < i % 4; j++) {
+                items.add(j == 1 ? null : new Primitives(i * j, (long) i << 33, j / 4.0, j % 2 == 0, (short) -i));
+            }
+            objects.add(new PrimitiveBatch(i % 5 == 0 ? null : "batch" + i, items));
+        }
+        var mapper = new FastExcelMapperFactory().createExcelMapperForClass(PrimitiveBatch.class);
+
+        var sequential = new ByteArrayOutputStream();
+        var wb = new Workbook(sequential, getClass().getName(), "0.1");
+        mapper.mapEachToExcelSheet(wb.newWorksheet("table"), 2, 1, objects.iterator());
+        wb.finish();
+
+        var chunked = new ByteArrayOutputStream();
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            wb = new Workbook(chunked, getClass().getName(), "0.1");
+            var extent = new FastExcelParallelExporter<>(mapper, executor)
+                    .mapChunksToWorksheet(wb.newWorksheet("table"), 2, 1, objects, 7, 2);
+            wb.finish();
+            // 13 + 13 objects without items or with one item, 12 objects with two items and 12 with three
+            assertEquals(new ExcelTableExtent(2, 1, mapper.getHeaderHeight() + 13 + 13 + 12 * 2 + 12 * 3, 6), extent);
+        } finally {
+            executor.shutdown();
+        }
+
+        try (var expected = new ReadableWorkbook(new ByteArrayInputStream(sequential.toByteArray()));
+             var actual = new ReadableWorkbook(new ByteArrayInputStream(chunked.toByteArray()))) {
+            var expectedRows = expected.getFirstSheet().read();
+            var actualRows = actual.getFirstSheet().read();
+            assertEquals(expectedRows.size(), actualRows.size());
+            for (int i = 0; i < expectedRows.size(); i++) {
+                assertEquals(expectedRows.get(i).getRowNum(), actualRows.get(i).getRowNum());
+                for (int column = 1; column <= 6; column++) {
+                    assertEquals(expectedRows.get(i).getCellText(column), actualRows.get(i).getCellText(column));
+                }
+            }
+        }
+    }
+
     public enum SimpleEnum {
         VARIANT_A, VARIANT_B, VARIANT_C
     }
@@ -208,4 +1273,157 @@ class ExcelMapperTest {
         @Getter(onMethod = @__(@ExcelExportObject(order = 0, headerName = "Simple List")))
         private List<SimpleClass> simpleList;
     }
-}
\ No newline at end of file
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportedOrder {
+        @Getter(onMethod = @__(@ExcelExportObject(order = 0, headerName = "Number")))
+        private String number;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 1, headerName = "Quantity")))
+        private Integer quantity;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 2, headerName = "Price")))
+        private double price;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 3, headerName = "Date")))
+        private LocalDate date;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 4, headerName = "Variant")))
+        private SimpleEnum variant;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 5, headerName = "Customer")))
+        private ImportedCustomer customer;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 6, headerName = "Lines")))
+        private List<ImportedLine> lines;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 7, headerName = "Tags")))
+        private List<String> tags;
+
+        @ExcelExportObject(order = 8, headerName = "Total")
+        public double getTotal() {
+            return price * (quantity == null ? 0 : quantity);
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportedLine {
+        @Getter(onMethod = @__(@ExcelExportObject(order = 0, headerName = "Product")))
+        private String product;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 1, headerName = "Count")))
+        private int count;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 2, headerName = "Colors")))
+        private List<String> colors;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class TreeItem {
+        @Getter(onMethod = @__(@ExcelExportObject(order = 0, headerName = "Name")))
+        private String name;
+        @Getter(onMethod = @__(@ExcelExportObject(order = 1, headerName = "Children")))
+        private List<TreeItem> children;
+    }
+
+    @RequiredArgsConstructor
+    public static class CountedParent {
+        private final String name;
+        private final List<CountedChild> children;
+        private final CountedChild favourite;
+        private int invocations;
+
+        @ExcelExportObject(order = 0, headerName = "Name")
+        public String getName() {
+            invocations++;
+            return name;
+        }
+
+        @ExcelExportObject(order = 1, headerName = "Children")
+        public List<CountedChild> getChildren() {
+            invocations++;
+            return children;
+        }
+
+        @ExcelExportObject(order = 2, headerName = "Favourite")
+        public CountedChild getFavourite() {
+            invocations++;
+            return favourite;
+        }
+    }
+
+    @RequiredArgsConstructor
+    public static class CountedChild {
+        private final String value;
+        private int invocations;
+
+        @ExcelExportObject(order = 0, headerName = "Value")
+        public String getValue() {
+            invocations++;
+            return value;
+        }
+    }
+
+    public record Sequences(
+            @ExcelExportObject(order = 0, headerName = "Tags") List<String> tags,
+            @ExcelExportObject(order = 1, headerName = "Ids") Iterable<Long> ids,
+            @ExcelExportObject(order = 2, headerName = "Codes") int[] codes,
+            @ExcelExportObject(order = 3, headerName = "Labels") String[] labels) {
+    }
+
+    /**
+     * exported by private fields without getters
+     */
+    public static class FieldMapped {
+        @ExcelExportObject(order = 0, headerName = "Name")
+        private String name;
+        @ExcelExportObject(order = 1, headerName = "Count")
+        private int count;
+        @ExcelExportObject(order = 2, headerName = "Tags")
+        private List<String> tags;
+    }
+
+    /**
+     * in-memory fake of data layer, which counts items loaded one owner at a time
+     */
+    public static class LazyStore {
+        private final Map<String, List<String>> items = new HashMap<>();
+        private int lazyLoads;
+    }
+
+    @RequiredArgsConstructor
+    public static class LazyOwner {
+        private final String name;
+        private final LazyStore store;
+        private List<String> loaded;
+
+        @ExcelExportObject(order = 0, headerName = "Name")
+        public String getName() {
+            return name;
+        }
+
+        @ExcelExportObject(order = 1, headerName = "Items")
+        public List<String> getItems() {
+            if (loaded == null) {
+                store.lazyLoads++;
+                loaded = store.items.get(name);
+            }
+            return loaded;
+        }
+    }
+
+    public record Primitives(
+            @ExcelExportObject(order = 0, headerName = "Count") int count,
+            @ExcelExportObject(order = 1, headerName = "Total") long total,
+            @ExcelExportObject(order = 2, headerName = "Ratio") double ratio,
+            @ExcelExportObject(order = 3, headerName = "Valid") boolean valid,
+            @ExcelExportObject(order = 4, headerName = "Code") short code) {
+    }
+
+    public record PrimitiveBatch(
+            @ExcelExportObject(order = 0, headerName = "Name") String name,
+            @ExcelExportObject(order = 1, headerName = "Items") List<Primitives> items) {
+    }
+
+    public record ImportedCustomer(
+            @ExcelExportObject(order = 0, headerName = "Name") String name,
+            @ExcelExportObject(order = 1, headerName = "VIP") boolean vip) {
+    }
+}